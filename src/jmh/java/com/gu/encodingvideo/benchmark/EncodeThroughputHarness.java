@@ -0,0 +1,260 @@
+package com.gu.encodingvideo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gu.encodingvideo.EncodingService;
+import com.gu.encodingvideo.EncodingvideoApplication;
+import com.gu.encodingvideo.ffmpeg.FFmpegBinaries;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.EncodingPreset;
+import com.gu.encodingvideo.job.EncodingProfile;
+import com.gu.encodingvideo.job.JobStatus;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 인코딩 처리량 측정
+ * lavfi testsrc2 로 해상도/길이별 원본을 만들고, 동시 작업 수(1..N)마다 애플리케이션을 새로 띄워
+ * EncodingService 로 모두 변환한 뒤 시간당 작업 수, 실시간 배속, 최대 RSS 를 JSON 으로 기록한다.
+ *
+ * 옵션 (--name=value):
+ *   resolutions  1280x720,1920x1080
+ *   durations    10,30 (초)
+ *   concurrency  1,2,4 (app-config.encoding.max-concurrent-jobs)
+ *   repeat       2 (수준마다 원본별 작업 수)
+ *   profile      SINGLE
+ *   preset       BALANCED
+ *   out          target/benchmark/encode-throughput.json
+ */
+public class EncodeThroughputHarness {
+
+    private static final Path WORK_DIR = Path.of("target", "benchmark");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<String> resolutions = split(options.getOrDefault("resolutions", "1280x720,1920x1080"));
+        List<Integer> durations = split(options.getOrDefault("durations", "10,30")).stream()
+                .map(Integer::parseInt).collect(Collectors.toList());
+        List<Integer> concurrency = split(options.getOrDefault("concurrency", "1,2,4")).stream()
+                .map(Integer::parseInt).collect(Collectors.toList());
+        int repeat = Integer.parseInt(options.getOrDefault("repeat", "2"));
+        EncodingOptions encodingOptions = EncodingOptions.builder()
+                .profile(EncodingProfile.valueOf(options.getOrDefault("profile", "SINGLE")))
+                .preset(EncodingPreset.valueOf(options.getOrDefault("preset", "BALANCED")))
+                .build();
+        Path out = Path.of(options.getOrDefault("out", WORK_DIR.resolve("encode-throughput.json").toString()));
+
+        Files.createDirectories(WORK_DIR.resolve("sources"));
+        List<Source> sources = new ArrayList<>();
+        List<Result> results = new ArrayList<>();
+
+        for (int level : concurrency) {
+            try (ConfigurableApplicationContext context = start(level)) {
+                if (sources.isEmpty()) {
+                    String ffmpeg = context.getBean(FFmpegBinaries.class).getFFmpegPath();
+                    for (String resolution : resolutions) {
+                        for (int duration : durations) {
+                            sources.add(generate(ffmpeg, resolution, duration));
+                        }
+                    }
+                }
+                Result result = run(context.getBean(EncodingService.class), level, sources, repeat, encodingOptions);
+                results.add(result);
+                System.out.println(mapper().writeValueAsString(result));
+            }
+        }
+
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        mapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out.toFile(), results);
+        System.out.println("결과: " + out.toAbsolutePath());
+    }
+
+    private static ConfigurableApplicationContext start(int level) {
+        return new SpringApplicationBuilder(EncodingvideoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "app-config.encoding.max-concurrent-jobs=" + level,
+                        "app-config.file-upload.encoding-path=/" + WORK_DIR.resolve("encoding-" + level),
+                        "app-config.journal.file=" + WORK_DIR.toAbsolutePath().resolve("journal-" + level + ".jsonl"))
+                .run();
+    }
+
+    /**
+     * 동시 작업 수 한 수준 측정. 원본 복사는 측정 시간에서 제외한다.
+     */
+    private static Result run(EncodingService service, int level, List<Source> sources, int repeat,
+                              EncodingOptions options) throws IOException {
+        Path staging = Files.createDirectories(WORK_DIR.resolve("staging-" + level));
+        List<Path> inputs = new ArrayList<>();
+        double mediaSeconds = 0;
+        for (int i = 0; i < repeat; i++) {
+            for (Source source : sources) {
+                Path copy = staging.resolve(i + "-" + source.getFile().getFileName());
+                Files.copy(source.getFile(), copy, StandardCopyOption.REPLACE_EXISTING);
+                inputs.add(copy);
+                mediaSeconds += source.getDuration();
+            }
+        }
+
+        RssSampler sampler = new RssSampler();
+        sampler.start();
+        long startedAt = System.nanoTime();
+
+        List<EncodingJob> jobs = new ArrayList<>();
+        for (Path input : inputs) {
+            jobs.add(service.submit(input.getFileName().toString(), input, options));
+        }
+        CompletableFuture.allOf(jobs.stream().map(EncodingJob::getCompletion).toArray(CompletableFuture[]::new)).join();
+
+        double wallSeconds = (System.nanoTime() - startedAt) / 1e9;
+        sampler.interrupt();
+
+        return Result.builder()
+                .concurrency(level)
+                .jobs(jobs.size())
+                .failed(jobs.stream().filter(job -> job.getStatus() != JobStatus.COMPLETED).count())
+                .wallSeconds(wallSeconds)
+                .mediaSeconds(mediaSeconds)
+                .jobsPerHour(jobs.size() * 3600 / wallSeconds)
+                .realtimeFactor(mediaSeconds / wallSeconds)
+                .avgQueueWaitMillis(jobs.stream()
+                        .mapToLong(job -> job.getTimings().getQueueWaitMillis() != null ? job.getTimings().getQueueWaitMillis() : 0)
+                        .average().orElse(0))
+                .avgEncodeMillis(jobs.stream()
+                        .mapToLong(job -> job.getTimings().getEncodeMillis() != null ? job.getTimings().getEncodeMillis() : 0)
+                        .average().orElse(0))
+                .peakFfmpegRssBytes(sampler.getPeak())
+                .jvmPeakRssBytes(readStatus(ProcessHandle.current().pid(), "VmHWM:"))
+                .build();
+    }
+
+    private static Source generate(String ffmpeg, String resolution, int duration)
+            throws IOException, InterruptedException {
+        Path file = WORK_DIR.resolve("sources").resolve("testsrc-" + resolution + "-" + duration + "s.mp4").toAbsolutePath();
+        if (!Files.exists(file)) {
+            Process prc = new ProcessBuilder(ffmpeg, "-hide_banner", "-loglevel", "error",
+                    "-f", "lavfi", "-i", "testsrc2=size=" + resolution + ":rate=30:duration=" + duration,
+                    "-c:v", "libx264", "-preset", "ultrafast", "-pix_fmt", "yuv420p", "-y", file.toString())
+                    .inheritIO()
+                    .start();
+            if (prc.waitFor() != 0) {
+                throw new IllegalStateException("원본 생성 실패: " + file);
+            }
+        }
+        return new Source(file, duration);
+    }
+
+    /**
+     * 하위 프로세스(FFmpeg) RSS 합의 최댓값. /proc 이 없는 OS 는 0
+     */
+    private static class RssSampler extends Thread {
+
+        private final AtomicLong peak = new AtomicLong();
+
+        RssSampler() {
+            super("rss-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                long total = ProcessHandle.current().descendants()
+                        .mapToLong(process -> readStatus(process.pid(), "VmRSS:"))
+                        .sum();
+                peak.accumulateAndGet(total, Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long getPeak() {
+            return peak.get();
+        }
+    }
+
+    /**
+     * /proc/{pid}/status 의 메모리 항목 (bytes)
+     */
+    private static long readStatus(long pid, String key) {
+        try {
+            return Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status")).stream()
+                    .filter(line -> line.startsWith(key))
+                    .mapToLong(line -> Long.parseLong(line.substring(key.length()).replace("kB", "").trim()) * 1024)
+                    .findFirst()
+                    .orElse(0);
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static ObjectMapper mapper() {
+        return new ObjectMapper();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Source {
+
+        private final Path file;
+
+        private final int duration;
+    }
+
+    @Getter
+    @Builder
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class Result {
+
+        int concurrency;
+        int jobs;
+        long failed;
+        double wallSeconds;
+        double mediaSeconds;
+        double jobsPerHour;
+        double realtimeFactor;
+        double avgQueueWaitMillis;
+        double avgEncodeMillis;
+        long peakFfmpegRssBytes;
+        long jvmPeakRssBytes;
+    }
+}
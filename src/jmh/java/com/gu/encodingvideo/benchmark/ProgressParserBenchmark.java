@@ -0,0 +1,62 @@
+package com.gu.encodingvideo.benchmark;
+
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import com.gu.encodingvideo.ffmpeg.ProgressParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FFmpeg -progress 한 블록(진행 정보 1건) 파싱
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProgressParserBenchmark {
+
+    /* libvpx-vp9 인코딩 중 실제 출력 */
+    private static final String[] BLOCK = {
+            "frame=1520",
+            "fps=47.52",
+            "stream_0_0_q=0.0",
+            "bitrate=1843.2kbits/s",
+            "total_size=14024704",
+            "out_time_us=60880000",
+            "out_time_ms=60880000",
+            "out_time=00:01:00.880000",
+            "dup_frames=0",
+            "drop_frames=0",
+            "speed=1.98x",
+            "progress=continue"
+    };
+
+    private ProgressParser parser;
+
+    @Setup
+    public void setUp() {
+        parser = new ProgressParser(3600);
+    }
+
+    @Benchmark
+    public void parseBlock(Blackhole blackhole) {
+        for (String line : BLOCK) {
+            FFmpegProgress progress = parser.accept(line);
+            if (progress != null) {
+                blackhole.consume(progress);
+            }
+        }
+    }
+}
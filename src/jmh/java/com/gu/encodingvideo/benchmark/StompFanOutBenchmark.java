@@ -0,0 +1,86 @@
+package com.gu.encodingvideo.benchmark;
+
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 진행 정보 1건을 SimpleBroker(/sub) 구독자 전체에 전달하는 비용
+ * 클라이언트 출력 채널은 동기 채널로 두어 WebSocket 전송을 제외한 브로커 비용만 잰다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StompFanOutBenchmark {
+
+    private static final String DESTINATION = "/sub/message/job/progress";
+
+    /* 같은 작업을 구독한 세션 수 */
+    @Param({"1", "10", "100"})
+    public int subscribers;
+
+    private final LongAdder delivered = new LongAdder();
+
+    private SimpleBrokerMessageHandler broker;
+
+    private SimpMessagingTemplate template;
+
+    private FFmpegProgress progress;
+
+    @Setup
+    public void setUp() {
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(message -> delivered.increment());
+
+        broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/sub"));
+        broker.start();
+
+        for (int i = 0; i < subscribers; i++) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            accessor.setSessionId("session-" + i);
+            accessor.setSubscriptionId("sub-" + i);
+            accessor.setDestination(DESTINATION);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        }
+
+        template = new SimpMessagingTemplate(brokerChannel);
+        template.setMessageConverter(new MappingJackson2MessageConverter());
+        progress = FFmpegProgress.of(60.88, 1520, 47.52, 1843.2, 1.98, 3600, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public void convertAndSend() {
+        template.convertAndSend(DESTINATION, progress);
+    }
+}
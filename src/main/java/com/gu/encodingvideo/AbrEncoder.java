@@ -0,0 +1,129 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.config.EncodingLadderProperties;
+import com.gu.encodingvideo.dto.RenditionProgress;
+import com.gu.encodingvideo.ffmpeg.CpuGovernor;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import com.gu.encodingvideo.job.EncodingJob;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * ABR 인코딩
+ * 원본을 한 번만 디코딩하여 해상도 단계별 WebM 을 만들고 DASH manifest 를 생성한다.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class AbrEncoder {
+
+    public static final String MANIFEST = "manifest.mpd";
+
+    private final EncodingLadderProperties ladderProperties;
+
+    private final FFmpegCommands commands;
+
+    private final FFmpegRunner ffmpegRunner;
+
+    private final CpuGovernor cpuGovernor;
+
+    private final EncodingProgressPublisher progressPublisher;
+
+    /**
+     * @param input 입력 파일명 또는 pipe:0
+     * @return 성공 여부
+     */
+    public boolean encode(EncodingJob job, String input, double duration) throws IOException, InterruptedException {
+        List<EncodingLadderProperties.Rendition> renditions = renditionsFor(job.getMediaInfo());
+        File workDir = job.getWorkDir().toFile();
+
+        List<Path> outputs = renditions.stream()
+                .map(rendition -> job.getWorkDir().resolve(rendition.getName() + ".webm"))
+                .collect(Collectors.toList());
+
+        int exitCode;
+        try (CpuGovernor.Lease lease = cpuGovernor.acquire()) {
+            exitCode = ffmpegRunner.run(job, workDir,
+                    commands.encodeLadder(input, renditions, ladderProperties.getKeyframeInterval(),
+                            job.getOptions().getPreset(), lease.getThreads()),
+                    duration,
+                    progress -> {
+                        if (progressPublisher.publish(job, progress)) {
+                            progressPublisher.publishRenditions(job, renditionProgress(renditions, outputs, progress.getOutTime()));
+                        }
+                    });
+        }
+        if (exitCode != 0) {
+            return false;
+        }
+
+        Path manifest = job.getWorkDir().resolve(MANIFEST);
+        exitCode = ffmpegRunner.run(job, workDir,
+                commands.dashManifest(outputs.stream().map(path -> path.getFileName().toString()).collect(Collectors.toList()),
+                        MANIFEST),
+                0, progress -> {
+                });
+        if (exitCode != 0) {
+            return false;
+        }
+
+        job.setRenditionFiles(outputs);
+        job.setOutputFile(manifest);
+        return true;
+    }
+
+    /**
+     * 원본보다 큰 해상도는 제외한다. 모두 크면 원본 해상도로 한 단계만 만든다.
+     */
+    List<EncodingLadderProperties.Rendition> renditionsFor(MediaInfo mediaInfo) {
+        List<EncodingLadderProperties.Rendition> ladder = new ArrayList<>(ladderProperties.getLadder());
+        ladder.sort(Comparator.comparingInt(EncodingLadderProperties.Rendition::getHeight).reversed());
+
+        if (mediaInfo == null || mediaInfo.getHeight() <= 0) {
+            return ladder;
+        }
+
+        List<EncodingLadderProperties.Rendition> fitting = ladder.stream()
+                .filter(rendition -> rendition.getHeight() <= mediaInfo.getHeight())
+                .collect(Collectors.toList());
+        if (!fitting.isEmpty()) {
+            return fitting;
+        }
+
+        EncodingLadderProperties.Rendition smallest = ladder.get(ladder.size() - 1);
+        EncodingLadderProperties.Rendition source = new EncodingLadderProperties.Rendition();
+        source.setName(smallest.getName());
+        source.setBitrate(smallest.getBitrate());
+        /* 세로 해상도는 짝수여야 한다 */
+        source.setHeight(mediaInfo.getHeight() & ~1);
+        return List.of(source);
+    }
+
+    private List<RenditionProgress> renditionProgress(List<EncodingLadderProperties.Rendition> renditions,
+                                                      List<Path> outputs, double outTime) {
+        List<RenditionProgress> progress = new ArrayList<>();
+        for (int i = 0; i < renditions.size(); i++) {
+            progress.add(RenditionProgress.builder()
+                    .name(renditions.get(i).getName())
+                    .height(renditions.get(i).getHeight())
+                    .outTime(outTime)
+                    .size(outputs.get(i).toFile().length())
+                    .build());
+        }
+        return progress;
+    }
+}
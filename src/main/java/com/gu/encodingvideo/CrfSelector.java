@@ -0,0 +1,265 @@
+package com.gu.encodingvideo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gu.encodingvideo.ffmpeg.CpuGovernor;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.storage.ScratchStorage;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 목표 품질 모드
+ * 짧은 샘플 구간을 여러 CRF 로 병렬 인코딩하고 동봉된 VMAF 모델로 원본과 비교하여,
+ * 목표 점수를 만족하는 가장 높은 CRF (가장 낮은 비트레이트) 를 고른다.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class CrfSelector {
+
+    /* 시험할 CRF (libvpx-vp9: 0~63) */
+    @Value("${app-config.encoding.quality.crf-candidates:24,31,38,45}")
+    private List<Integer> crfCandidates;
+
+    @Value("${app-config.encoding.quality.sample-count:3}")
+    private int sampleCount;
+
+    /* 샘플 구간 길이 (초) */
+    @Value("${app-config.encoding.quality.sample-duration:4}")
+    private double sampleDuration;
+
+    /* binary/{os}/bin/model 아래의 VMAF 모델 */
+    @Value("${app-config.encoding.quality.model:vmaf_v0.6.1.json}")
+    private String model;
+
+    private final FFmpegCommands commands;
+
+    private final FFmpegRunner ffmpegRunner;
+
+    private final CpuGovernor cpuGovernor;
+
+    private final ObjectMapper objectMapper;
+
+    private final ScratchStorage storage;
+
+    /* 구간 인코딩 전용 워커 풀 (AsyncConfig) */
+    private final ThreadPoolTaskExecutor segmentExecutor;
+
+    /**
+     * CRF 를 골라 작업에 기록한다.
+     *
+     * @return 성공 여부. 실패하면 기본 설정으로 인코딩한다.
+     */
+    public boolean select(EncodingJob job, Path inputPath, double targetVmaf) throws IOException, InterruptedException {
+        double duration = job.getMediaInfo() != null ? job.getMediaInfo().getDuration() : 0;
+        if (duration <= 0) {
+            return false;
+        }
+
+        Path sampleDir = Files.createDirectories(job.getScratchDir().resolve("quality"));
+        Samples samples = new Samples();
+        boolean success = false;
+        try {
+            List<Double> starts = sampleStarts(duration);
+            double length = Math.min(sampleDuration, duration);
+            String input = inputPath.toAbsolutePath().toString();
+
+            /* CRF 별 샘플 점수. 하나라도 실패하면 나머지 샘플을 중지한다 */
+            Map<Integer, List<CompletableFuture<Double>>> futures = new TreeMap<>();
+            for (int crf : crfCandidates) {
+                for (int i = 0; i < starts.size(); i++) {
+                    double start = starts.get(i);
+                    String name = "crf" + crf + "_" + i;
+                    CompletableFuture<Double> future = CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return score(job, samples, sampleDir, input, start, length, crf, name);
+                        } catch (IOException e) {
+                            throw new CompletionException(e);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new CompletionException(e);
+                        }
+                    }, segmentExecutor);
+                    samples.tasks.add(future);
+                    future.whenComplete((score, e) -> {
+                        if (e != null) {
+                            samples.stop();
+                        }
+                    });
+                    futures.computeIfAbsent(crf, key -> new ArrayList<>()).add(future);
+                }
+            }
+
+            TreeMap<Integer, Double> scores = new TreeMap<>();
+            for (Map.Entry<Integer, List<CompletableFuture<Double>>> entry : futures.entrySet()) {
+                double sum = 0;
+                for (CompletableFuture<Double> future : entry.getValue()) {
+                    sum += future.get();
+                }
+                scores.put(entry.getKey(), sum / entry.getValue().size());
+            }
+            log.info("[{}] VMAF by CRF: {}", job.getId(), scores);
+
+            Choice choice = fit(scores, targetVmaf);
+            job.setCrf(choice.getCrf());
+            job.setPredictedVmaf(choice.getPredictedVmaf());
+            success = true;
+            return true;
+        } catch (ExecutionException e) {
+            log.warn("[{}] Failed to select CRF: {}", job.getId(), e.getCause().getMessage());
+            return false;
+        } catch (CancellationException | RejectedExecutionException e) {
+            log.warn("[{}] CRF selection stopped: {}", job.getId(), e.toString());
+            return false;
+        } finally {
+            /* 실패, 중단 시 남은 샘플을 중지하고 프로세스를 종료한 뒤 정리 */
+            if (!success) {
+                samples.stop();
+            }
+            storage.deleteLater(sampleDir);
+        }
+    }
+
+    /**
+     * 샘플 하나를 인코딩하고 VMAF 평균 점수를 구한다.
+     */
+    private double score(EncodingJob job, Samples samples, Path sampleDir, String input, double start, double length,
+                         int crf, String name) throws IOException, InterruptedException {
+        String sample = name + ".webm";
+        String logFile = name + ".json";
+
+        try (CpuGovernor.Lease lease = cpuGovernor.acquire()) {
+            int exitCode = samples.run(ffmpegRunner, job, sampleDir,
+                    commands.encodeSample(input, start, length, sample, job.getOptions().getPreset(), crf,
+                            lease.getThreads()));
+            if (exitCode != 0) {
+                throw new IOException("Sample encoding exited with " + exitCode);
+            }
+
+            exitCode = samples.run(ffmpegRunner, job, sampleDir,
+                    commands.vmaf(sample, input, start, length, model, logFile, lease.getThreads()));
+            if (exitCode != 0) {
+                throw new IOException("VMAF exited with " + exitCode);
+            }
+        }
+
+        double vmaf = objectMapper.readTree(sampleDir.resolve(logFile).toFile())
+                .path("pooled_metrics").path("vmaf").path("mean").asDouble(Double.NaN);
+        if (Double.isNaN(vmaf)) {
+            throw new IOException("No VMAF score in " + logFile);
+        }
+        return vmaf;
+    }
+
+    /**
+     * 영상 전체에 고르게 분포한 샘플 시작 시각
+     */
+    List<Double> sampleStarts(double duration) {
+        List<Double> starts = new ArrayList<>();
+        if (duration <= sampleDuration * sampleCount) {
+            starts.add(0.0);
+            return starts;
+        }
+        for (int i = 1; i <= sampleCount; i++) {
+            starts.add(duration * i / (sampleCount + 1) - sampleDuration / 2);
+        }
+        return starts;
+    }
+
+    /**
+     * CRF-VMAF 측정점을 선형 보간하여 목표 점수를 만족하는 가장 높은 CRF 를 구한다.
+     * 어떤 CRF 로도 만족하지 못하면 가장 낮은 CRF 를 사용한다.
+     */
+    static Choice fit(TreeMap<Integer, Double> scores, double targetVmaf) {
+        Map.Entry<Integer, Double> previous = null;
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            if (entry.getValue() < targetVmaf) {
+                if (previous == null) {
+                    return new Choice(entry.getKey(), entry.getValue());
+                }
+                /* previous 는 목표 이상, entry 는 미만 */
+                double ratio = (previous.getValue() - targetVmaf) / (previous.getValue() - entry.getValue());
+                int crf = previous.getKey() + (int) Math.floor(ratio * (entry.getKey() - previous.getKey()));
+                double predicted = previous.getValue()
+                        + (entry.getValue() - previous.getValue()) * (crf - previous.getKey()) / (entry.getKey() - previous.getKey());
+                return new Choice(crf, predicted);
+            }
+            previous = entry;
+        }
+        return new Choice(scores.lastKey(), scores.lastEntry().getValue());
+    }
+
+    /**
+     * 한 작업의 샘플 실행
+     * 작업의 다른 프로세스(본 인코딩)와 별개로, 중지하면 대기 중인 샘플은 취소하고 시작 직전인 샘플은 시작하지 않으며
+     * 실행 중인 샘플 프로세스는 종료한다.
+     */
+    static class Samples {
+
+        final List<CompletableFuture<Double>> tasks = new CopyOnWriteArrayList<>();
+
+        final Set<CompletableFuture<Integer>> running = ConcurrentHashMap.newKeySet();
+
+        volatile boolean stopped;
+
+        int run(FFmpegRunner runner, EncodingJob job, Path sampleDir, List<String> cmd)
+                throws IOException, InterruptedException {
+            if (stopped) {
+                throw new IOException("Sampling stopped");
+            }
+            CompletableFuture<Integer> exit = runner.start(job, sampleDir.toFile(), cmd, 0, progress -> {
+            });
+            running.add(exit);
+            /* stop() 과 동시에 시작한 경우 */
+            if (stopped) {
+                exit.cancel(true);
+            }
+            try {
+                return FFmpegRunner.await(exit);
+            } catch (CancellationException e) {
+                throw new IOException("Sampling stopped");
+            } finally {
+                running.remove(exit);
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            tasks.forEach(task -> task.cancel(false));
+            running.forEach(exit -> exit.cancel(true));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Choice {
+        private final int crf;
+        private final double predictedVmaf;
+    }
+}
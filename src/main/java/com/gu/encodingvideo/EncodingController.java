@@ -2,19 +2,37 @@ package com.gu.encodingvideo;
 
 import com.gu.encodingvideo.dto.ApiResponse;
 import com.gu.encodingvideo.dto.ApiResponseCode;
+import com.gu.encodingvideo.dto.BatchItemResponse;
+import com.gu.encodingvideo.dto.EncodingRequest;
+import com.gu.encodingvideo.download.OutputDownloadService;
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.ingest.PathIngestService;
+import com.gu.encodingvideo.dto.JobResponse;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingJobRegistry;
+import com.gu.encodingvideo.job.EncodingOptions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.api.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
@@ -26,20 +44,139 @@ public class EncodingController {
 
     private final EncodingService encodingService;
 
+    private final EncodingJobRegistry jobRegistry;
+
+    private final OutputDownloadService downloadService;
+
+    private final PathIngestService pathIngestService;
+
+    /* 롱 폴링 최대 대기 시간(초) */
+    private static final long MAX_WAIT_SECONDS = 300;
+
     @PostMapping(value = "/encode", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE, MediaType.APPLICATION_JSON_VALUE})
-    @Operation(summary = "비디오 인코딩", description = "MP4 비디오를 WebM 형식으로 인코딩")
-    public ResponseEntity<ApiResponse<String>> encodeVideo(@RequestParam("file") MultipartFile file) throws ExecutionException, InterruptedException {
-        CompletableFuture<String> future = encodingService.convertMp4ToWebmFile(file);
+    @Operation(summary = "비디오 인코딩", description = "MP4 비디오를 WebM 형식으로 인코딩. 작업 ID를 즉시 반환하고 인코딩은 백그라운드에서 진행")
+    public ResponseEntity<ApiResponse<JobResponse>> encodeVideo(@RequestParam("file") MultipartFile file,
+            @ParameterObject EncodingRequest options,
+            HttpServletRequest request) {
+        EncodingJob job = encodingService.submit(file, options.toOptions(request));
+
+        return ApiResponse.toResponseEntity(ApiResponseCode.ENCODING_ACCEPTED, JobResponse.from(job), jobLocation(job));
+    }
+
+    @PostMapping(value = "/encode/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "비디오 일괄 인코딩", description = "여러 파일을 같은 옵션으로 등록. 파일별로 작업 또는 거절 사유를 반환하고, "
+            + "작업 순서는 클라이언트(X-Client-Id)별 공정 분배와 짧은 작업 우선으로 정한다")
+    public ResponseEntity<ApiResponse<List<BatchItemResponse>>> encodeVideos(@RequestParam("files") List<MultipartFile> files,
+            @ParameterObject EncodingRequest options,
+            HttpServletRequest request) {
+        EncodingOptions encodingOptions = options.toOptions(request);
+
+        List<BatchItemResponse> results = files.stream()
+                .map(file -> {
+                    try {
+                        return BatchItemResponse.accepted(file.getOriginalFilename(),
+                                JobResponse.from(encodingService.submit(file, encodingOptions)));
+                    } catch (BadRequestException e) {
+                        return BatchItemResponse.rejected(file.getOriginalFilename(), e.getErrorCode());
+                    }
+                })
+                .collect(Collectors.toList());
+
+        return ApiResponse.toResponseEntity(ApiResponseCode.ENCODING_ACCEPTED, results);
+    }
+
+    @PostMapping(value = "/encode/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "비디오 스트리밍 인코딩", description = "요청 본문을 FFmpeg 로 바로 전달하여 업로드 중에 인코딩 시작 (webm, mkv, ts 등 스트리밍 가능한 형식)")
+    public ResponseEntity<ApiResponse<JobResponse>> encodeVideoStream(@RequestParam("filename") String filename,
+            @ParameterObject EncodingRequest options,
+            HttpServletRequest request) throws IOException {
+        EncodingJob job = encodingService.submitStream(filename, request.getInputStream(), options.toOptions(request));
+
+        return ApiResponse.toResponseEntity(ApiResponseCode.ENCODING_ACCEPTED, JobResponse.from(job), jobLocation(job));
+    }
+
+    @PostMapping("/encode/path")
+    @Operation(summary = "서버 경로 인코딩", description = "공유 저장소에 있는 파일을 업로드 없이 인코딩 (app-config.ingest.allowed-roots 안의 경로). "
+            + "원본은 복사하지 않고, output-dir 이 설정되어 있으면 결과를 그 아래에 둔다")
+    public ResponseEntity<ApiResponse<JobResponse>> encodeVideoPath(@RequestParam("path") String path,
+            @ParameterObject EncodingRequest options,
+            HttpServletRequest request) {
+        EncodingJob job = pathIngestService.ingest(path, options.toOptions(request));
 
-        String result = future.get();
+        return ApiResponse.toResponseEntity(ApiResponseCode.ENCODING_ACCEPTED, JobResponse.from(job), jobLocation(job));
+    }
+
+    private HttpHeaders jobLocation(EncodingJob job) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/v1/jobs/{id}")
+                .buildAndExpand(job.getId())
+                .toUri());
+        return headers;
+    }
+
+    @GetMapping("/jobs/{id}")
+    @Operation(summary = "인코딩 작업 상태", description = "인코딩 작업 상태 조회")
+    public ResponseEntity<ApiResponse<JobResponse>> getJob(@PathVariable("id") String jobId) {
+        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, JobResponse.from(jobRegistry.get(jobId)));
+    }
+
+    @GetMapping("/jobs/{id}/result")
+    @Operation(summary = "인코딩 작업 결과 대기", description = "작업이 끝나거나 대기 시간(초)이 지나면 작업 상태를 반환 (롱 폴링)")
+    public DeferredResult<ResponseEntity<ApiResponse<JobResponse>>> waitJob(@PathVariable("id") String jobId,
+            @RequestParam(value = "timeout", defaultValue = "30") long timeout) {
+        EncodingJob job = jobRegistry.get(jobId);
+        long waitMillis = TimeUnit.SECONDS.toMillis(Math.max(1, Math.min(timeout, MAX_WAIT_SECONDS)));
+
+        /* 요청 스레드를 점유하지 않고 작업 완료 시점에 응답 */
+        DeferredResult<ResponseEntity<ApiResponse<JobResponse>>> result = new DeferredResult<>(waitMillis);
+        result.onTimeout(() -> result.setResult(
+                ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, JobResponse.from(job))));
+        job.getCompletion().thenAccept(done -> result.setResult(
+                ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, JobResponse.from(done))));
+
+        return result;
+    }
+
+    @GetMapping("/jobs/{id}/output")
+    @Operation(summary = "인코딩 결과 다운로드", description = "Range(206), ETag 를 지원. ABR, LIVE 작업은 manifest 로 이동")
+    public void downloadOutput(@PathVariable("id") String jobId,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        EncodingJob job = jobRegistry.get(jobId);
+        Path file = downloadService.resolve(job, null);
+
+        /* manifest 의 상대 경로(해상도별 파일)가 /output/{filename} 으로 풀리도록 이동 */
+        if (file.getFileName().toString().endsWith(".mpd")) {
+            response.sendRedirect(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .path("/{filename}")
+                    .buildAndExpand(file.getFileName().toString())
+                    .toUriString());
+            return;
+        }
+        downloadService.send(file, request, response);
+    }
+
+    @GetMapping("/jobs/{id}/output/{filename:.+}")
+    @Operation(summary = "인코딩 결과 파일 다운로드", description = "ABR manifest 및 해상도별 파일, LIVE 는 인코딩 중에도 manifest 와 완성된 세그먼트. Range(206), ETag 지원")
+    public void downloadOutputFile(@PathVariable("id") String jobId, @PathVariable("filename") String filename,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = downloadService.resolve(jobRegistry.get(jobId), filename);
+        downloadService.send(file, request, response);
+    }
 
-        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, result);
+    @GetMapping("/jobs")
+    @Operation(summary = "인코딩 작업 목록", description = "등록된 인코딩 작업 목록 조회")
+    public ResponseEntity<ApiResponse<List<JobResponse>>> getJobs() {
+        List<JobResponse> jobs = jobRegistry.findAll().stream()
+                .map(JobResponse::from)
+                .collect(Collectors.toList());
+        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, jobs);
     }
 
-    @DeleteMapping("/stop")
-    @Operation(summary = "인코딩 중지", description = "비디오 인코딩 중지")
-    public ResponseEntity<ApiResponse<Void>> stopAllProcesses() {
-        encodingService.stopAllProcesses();
-        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK);
+    @DeleteMapping("/jobs/{id}")
+    @Operation(summary = "인코딩 중지", description = "해당 작업의 비디오 인코딩만 중지")
+    public ResponseEntity<ApiResponse<JobResponse>> cancelJob(@PathVariable("id") String jobId) {
+        EncodingJob job = encodingService.cancel(jobId);
+        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, JobResponse.from(job));
     }
 }
@@ -0,0 +1,81 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.exception.ErrorCode;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingPlan;
+import com.gu.encodingvideo.job.EncodingProfile;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * 입력 파일의 실제 컨테이너와 코덱을 보고 가장 적은 비용의 처리 방법을 정한다.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EncodingPlanner {
+
+    private static final String TARGET_CODEC = "vp9";
+
+    private static final Set<String> WEBM_AUDIO_CODECS = Set.of("opus", "vorbis");
+
+    private final FFmpegCommands commands;
+
+    /**
+     * 인코딩 가능한 영상인지 확인 (확장자가 아닌 FFprobe 결과 기준)
+     */
+    public void validate(MediaInfo mediaInfo) {
+        if (mediaInfo == null
+                || mediaInfo.getVideoCodec() == null
+                || mediaInfo.getHeight() <= 0
+                || !(mediaInfo.getDuration() > 0)
+                || isImageFormat(mediaInfo.getFormatName())) {
+            throw new BadRequestException(ErrorCode.INVALID_FILE);
+        }
+    }
+
+    /**
+     * 스트리밍 입력(분석 정보 없음)과 ABR 은 항상 인코딩한다.
+     */
+    public EncodingPlan plan(EncodingJob job) {
+        MediaInfo mediaInfo = job.getMediaInfo();
+        if (job.getOptions().getProfile() != EncodingProfile.SINGLE || mediaInfo == null) {
+            return EncodingPlan.ENCODE;
+        }
+
+        /* 업스케일 하지 않으므로 최대 해상도 이하의 VP9 는 그대로 사용할 수 있다 */
+        if (!TARGET_CODEC.equals(mediaInfo.getVideoCodec()) || mediaInfo.getHeight() > commands.getMaxHeight()) {
+            return EncodingPlan.ENCODE;
+        }
+
+        /* 미리보기는 디코딩이 필요하므로 FFmpeg 를 실행하는 REMUX 로 처리 */
+        if (isWebm(mediaInfo) && hasWebmAudio(mediaInfo) && job.getOriginalFilename().toLowerCase().endsWith(".webm")
+                && !job.getOptions().isThumbnails()) {
+            return EncodingPlan.COPY;
+        }
+        return EncodingPlan.REMUX;
+    }
+
+    /* matroska 와 webm 은 같은 demuxer (matroska,webm) 로 분석되므로 EBML DocType 으로 구분한다 */
+    private boolean isWebm(MediaInfo mediaInfo) {
+        return mediaInfo.getFormatName() != null && mediaInfo.getFormatName().contains("webm")
+                && "webm".equals(mediaInfo.getDocType());
+    }
+
+    /* 그대로 사용하려면 오디오가 없거나 WebM 에서 허용하는 코덱(opus, vorbis)이어야 한다 */
+    private boolean hasWebmAudio(MediaInfo mediaInfo) {
+        return WEBM_AUDIO_CODECS.containsAll(mediaInfo.getAudioCodecs());
+    }
+
+    /* 정지 이미지 (image2, png_pipe 등) */
+    private boolean isImageFormat(String formatName) {
+        return formatName == null || formatName.startsWith("image2") || formatName.endsWith("_pipe");
+    }
+}
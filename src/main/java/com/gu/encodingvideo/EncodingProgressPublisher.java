@@ -0,0 +1,105 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.distributed.RedisJobEvents;
+import com.gu.encodingvideo.dto.LiveSegmentEvent;
+import com.gu.encodingvideo.dto.PreviewEvent;
+import com.gu.encodingvideo.dto.RenditionProgress;
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import com.gu.encodingvideo.ffmpeg.FFmpegTime;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.metrics.EncodingMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 인코딩 진행 상황 WebSocket(STOMP) 전송
+ * 작업마다 초당 최대 max-updates-per-second 번으로 묶어서 보낸다.
+ */
+@Component
+public class EncodingProgressPublisher {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /* 분산 모드에서는 Redis 로 모든 노드에 전달 */
+    private final ObjectProvider<RedisJobEvents> jobEvents;
+
+    private final EncodingMetrics metrics;
+
+    /* 작업별 최소 전송 간격 (ns) */
+    private final long minIntervalNanos;
+
+    public EncodingProgressPublisher(SimpMessagingTemplate messagingTemplate, ObjectProvider<RedisJobEvents> jobEvents,
+                                     EncodingMetrics metrics,
+                                     @Value("${app-config.progress.max-updates-per-second:2}") double maxUpdatesPerSecond) {
+        this.messagingTemplate = messagingTemplate;
+        this.jobEvents = jobEvents;
+        this.metrics = metrics;
+        this.minIntervalNanos = maxUpdatesPerSecond > 0 ? (long) (1_000_000_000L / maxUpdatesPerSecond) : 0;
+    }
+
+    /**
+     * 인코딩 할 총 시간 (기존 전체 토픽과 작업별 토픽)
+     */
+    public void publishDuration(EncodingJob job, double duration) {
+        if (duration > 0) {
+            String formatted = FFmpegTime.format(duration);
+            send("/sub/message/duration", formatted);
+            send("/sub/message/" + job.getId() + "/duration", formatted);
+        }
+    }
+
+    /**
+     * 진행 정보. 최근 정보는 항상 작업에 기록하고, 전송은 간격을 두고 한다.
+     * 마지막 진행 정보는 간격과 관계없이 보낸다.
+     *
+     * @return 전송 여부
+     */
+    public boolean publish(EncodingJob job, FFmpegProgress progress) {
+        job.setProgress(progress);
+
+        if (!job.tryAcquirePublish(System.nanoTime(), minIntervalNanos) && !progress.isEnd()) {
+            return false;
+        }
+
+        String time = FFmpegTime.format(progress.getOutTime());
+        send("/sub/message/time", time);
+        send("/sub/message/" + job.getId() + "/time", time);
+        send("/sub/message/" + job.getId() + "/progress", progress);
+        return true;
+    }
+
+    /**
+     * ABR 해상도별 진행 정보
+     */
+    public void publishRenditions(EncodingJob job, List<RenditionProgress> renditions) {
+        send("/sub/message/" + job.getId() + "/renditions", renditions);
+    }
+
+    /**
+     * LIVE 세그먼트 완성 알림
+     */
+    public void publishSegment(EncodingJob job, LiveSegmentEvent segment) {
+        send("/sub/message/" + job.getId() + "/segments", segment);
+    }
+
+    /**
+     * 미리보기 완성 알림
+     */
+    public void publishPreview(EncodingJob job, PreviewEvent preview) {
+        send("/sub/message/" + job.getId() + "/preview", preview);
+    }
+
+    private void send(String destination, Object payload) {
+        metrics.messageSent(destination.substring(destination.lastIndexOf('/') + 1));
+        RedisJobEvents events = jobEvents.getIfAvailable();
+        if (events != null) {
+            events.publishStomp(destination, payload);
+        } else {
+            messagingTemplate.convertAndSend(destination, payload);
+        }
+    }
+}
@@ -1,211 +1,692 @@
 package com.gu.encodingvideo;
 
+import com.gu.encodingvideo.admission.AdmissionControl;
+import com.gu.encodingvideo.cache.ContentHash;
+import com.gu.encodingvideo.cache.TranscodeCache;
+import com.gu.encodingvideo.distributed.RedisJobEvents;
+import com.gu.encodingvideo.distributed.RedisJobQueue;
 import com.gu.encodingvideo.exception.BadRequestException;
 import com.gu.encodingvideo.exception.ErrorCode;
+import com.gu.encodingvideo.ffmpeg.CpuGovernor;
+import com.gu.encodingvideo.ffmpeg.FFmpegBinaries;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import com.gu.encodingvideo.ffmpeg.MediaProbe;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingJobRegistry;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.EncodingPlan;
+import com.gu.encodingvideo.job.EncodingProfile;
+import com.gu.encodingvideo.job.JobJournal;
+import com.gu.encodingvideo.job.JobScheduler;
+import com.gu.encodingvideo.job.JobStatus;
+import com.gu.encodingvideo.job.JournalRecord;
+import com.gu.encodingvideo.metrics.EncodingMetrics;
+import com.gu.encodingvideo.storage.ScratchStorage;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Slf4j
 public class EncodingService {
-    final String OS = System.getProperty("os.name").toLowerCase();
-    public boolean IS_MAC = (OS.contains("mac"));
-    public boolean IS_UNIX = (OS.contains("nix") || OS.contains("nux") || OS.indexOf("aix") > 0);
-    public boolean IS_WINDOWS = OS.contains("windows");
+    /* 스트리밍(pipe:0) 입력을 허용하는 확장자. 시작 전에 분석할 수 없어 컨테이너를 확장자로 판단한다 */
+    @Value("${app-config.file-upload.streamable-extensions:webm,mkv,ts,flv,mpg,mpeg}")
+    private List<String> streamableExtensions;
 
-    @Value("${app-config.file-upload.base-path}")
-    private String basePath;
+    private final FFmpegBinaries binaries;
 
-    @Value("${app-config.file-upload.encoding-path}")
-    private String encodingPath;
+    private final FFmpegCommands commands;
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final FFmpegRunner ffmpegRunner;
 
-    /* 현재 실행 중인 프로세스 목록 */
-    private final List<Process> processes = new CopyOnWriteArrayList<>();
+    private final CpuGovernor cpuGovernor;
 
-    /* 프로세스 진행 상태 */
-    private Boolean status = false;
+    private final MediaProbe mediaProbe;
+
+    private final EncodingPlanner planner;
+
+    private final SegmentEncoder segmentEncoder;
+
+    private final CrfSelector crfSelector;
+
+    private final AbrEncoder abrEncoder;
+
+    private final LiveDashEncoder liveDashEncoder;
+
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    private final PreviewEncoder previewEncoder;
+
+    private final EncodingProgressPublisher progressPublisher;
+
+    private final TranscodeCache transcodeCache;
+
+    private final EncodingMetrics metrics;
+
+    private final EncodingJobRegistry jobRegistry;
+
+    private final JobJournal journal;
+
+    private final AdmissionControl admissionControl;
+
+    /* 원본, 중간 파일 저장소와 사용량 한도 */
+    private final ScratchStorage storage;
+
+    /* 인코딩 워커 풀(AsyncConfig)에 넘길 작업 순서 */
+    private final JobScheduler scheduler;
+
+    /* 분산 모드 (app-config.distributed.enabled) 에서만 존재 */
+    private final ObjectProvider<RedisJobQueue> jobQueue;
+
+    private final ObjectProvider<RedisJobEvents> jobEvents;
 
     /**
-     * 변환
+     * 작업 등록
+     * 업로드 파일을 작업 폴더로 옮긴 뒤 워커 풀에 인코딩을 맡긴다.
      */
-    @Async
-    @Transactional
-    public CompletableFuture<String> convertMp4ToWebmFile(MultipartFile file) {
-        stopAllProcesses();
+    public EncodingJob submit(MultipartFile file, EncodingOptions options) {
+        String originalFilename = file.getOriginalFilename();
+        validateFilename(originalFilename);
+        storage.checkFreeSpace(file.getSize());
 
-        if (status)
-            throw new BadRequestException(ErrorCode.EXCEED_MAX_UPLOAD_COUNT);
+        EncodingJob job = createJob(originalFilename, options, file.getSize());
+        Path inputFile = job.getScratchDir().resolve(FilenameUtils.getName(originalFilename));
 
-        ProcessBuilder builder = new ProcessBuilder();
-        List<String> videoExtensions = Arrays.asList("mp4", "avi", "mov", "mpg", "wmv", "mpeg", "webm");
-        String inputFileString = basePath + encodingPath + File.separator + file.getOriginalFilename();
-        Path encodingFolderPath = Path.of(basePath, encodingPath);
+        /* 임시 업로드 파일을 이동 (같은 파일 시스템이면 rename, 아니면 복사)
+         * 캐시 키는 워커에서 원본을 한 번 읽어 만든다 (요청 스레드에서 다시 쓰지 않는다) */
+        try {
+            file.transferTo(inputFile.toFile());
+        } catch (IOException e) {
+            log.error("Failed to save the file: {}", e.getMessage());
+            deleteWorkDir(job);
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        }
 
-        if (videoExtensions.stream().noneMatch(file.getOriginalFilename().toLowerCase()::endsWith)) {
-            throw new BadRequestException(ErrorCode.INVALID_FILE);
+        return enqueue(job, inputFile, null);
+    }
+
+    /**
+     * 서버에 이미 있는 파일로 작업 등록
+     * 파일을 작업 폴더로 이동(rename)하며 복사하지 않는다.
+     */
+    public EncodingJob submit(String originalFilename, Path source, EncodingOptions options) {
+        return submit(originalFilename, source, options, null);
+    }
+
+    /**
+     * @param contentHash 원본 해시 ({@link ContentHash}). 모르면 null (워커에서 계산)
+     */
+    public EncodingJob submit(String originalFilename, Path source, EncodingOptions options, String contentHash) {
+        validateFilename(originalFilename);
+
+        long size;
+        try {
+            size = Files.size(source);
+        } catch (IOException e) {
+            log.error("Failed to read the file size: {}", e.getMessage());
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
         }
 
-        try (BufferedInputStream input = new BufferedInputStream(file.getInputStream());
-                BufferedOutputStream output = new BufferedOutputStream(Files.newOutputStream(Path.of(inputFileString)))
-        ) {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = input.read(buffer)) != -1) {
-                output.write(buffer, 0, bytesRead);
+        EncodingJob job = createJob(originalFilename, options, size);
+        Path inputFile = job.getScratchDir().resolve(FilenameUtils.getName(originalFilename));
+
+        try {
+            Files.move(source, inputFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(source, inputFile);
+            } catch (IOException ex) {
+                log.error("Failed to move the file: {}", ex.getMessage());
+                deleteWorkDir(job);
+                throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
             }
         } catch (IOException e) {
-            log.error("Failed to save the file: {}", e.getMessage());
+            log.error("Failed to move the file: {}", e.getMessage());
+            deleteWorkDir(job);
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        }
+
+        return enqueue(job, inputFile, contentHash);
+    }
+
+    /**
+     * 공유 저장소의 파일로 작업 등록 (감시 폴더, 서버 경로)
+     * 원본은 그대로 두고 작업 폴더에 링크만 만든다. 원본을 복사하지 않으므로 사용량 한도에 포함하지 않는다.
+     */
+    public EncodingJob ingest(String originalFilename, Path source, EncodingOptions options) {
+        validateFilename(originalFilename);
+
+        EncodingJob job = createJob(originalFilename, options, 0);
+        Path inputFile = job.getScratchDir().resolve(FilenameUtils.getName(originalFilename));
+
+        try {
+            try {
+                Files.createLink(inputFile, source);
+            } catch (IOException | UnsupportedOperationException e) {
+                /* 다른 파일 시스템이면 심볼릭 링크 */
+                Files.createSymbolicLink(inputFile, source.toAbsolutePath());
+            }
+        } catch (IOException e) {
+            log.error("Failed to link the file: {}", e.getMessage());
+            deleteWorkDir(job);
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        }
+
+        return enqueue(job, inputFile, null);
+    }
+
+    /**
+     * 입력을 분석하여 처리 방법을 정하고 워커 풀에 맡긴다. 캐시에 같은 결과가 있으면 바로 완료한다.
+     *
+     * @param contentHash 받으면서 계산한 원본 해시 ({@link ContentHash}). null 이면 캐시 조회를 워커에서 한다.
+     */
+    private EncodingJob enqueue(EncodingJob job, Path inputFile, String contentHash) {
+        try {
+            planner.validate(probe(job, inputFile));
+            job.setPlan(planner.plan(job));
+            /* 변환하는 작업만 부하 확인 (COPY, REMUX 는 바로 끝난다) */
+            if (job.getPlan() == EncodingPlan.ENCODE) {
+                admissionControl.admit(job);
+            }
+        } catch (BadRequestException e) {
+            deleteWorkDir(job);
+            throw e;
+        }
+        if (contentHash != null && job.getPlan() == EncodingPlan.ENCODE && isCacheable(job)) {
+            job.setCacheKey(transcodeCache.key(contentHash, cacheOptions(job)));
+        }
+        jobRegistry.register(job);
+        journal.submitted(job, false);
+
+        if (job.getCacheKey() != null && completeFromCache(job, inputFile)) {
+            return job;
+        }
+
+        job.getTimings().queued();
+        submitPreview(job, inputFile);
+
+        /* 분산 모드: 공유 저장소의 작업 폴더에 원본을 두고 작업 스트림에 추가 */
+        RedisJobQueue queue = jobQueue.getIfAvailable();
+        if (queue != null) {
+            queue.add(job);
+            return job;
+        }
+
+        scheduler.submit(job, () -> convertMp4ToWebmFile(job, inputFile));
+        return job;
+    }
+
+    /**
+     * 재시작 시 기록에서 종료되지 않은 작업을 다시 등록
+     * 분산 모드에서는 작업 스트림이 남아 있으므로 복구하지 않는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (jobQueue.getIfAvailable() != null) {
+            return;
+        }
+
+        List<JournalRecord> records;
+        try {
+            records = journal.recover();
+        } catch (IOException e) {
+            log.error("Failed to read the job journal: {}", e.getMessage());
+            return;
+        }
+
+        for (JournalRecord record : records) {
+            EncodingJob job = new EncodingJob(record.getJobId(), record.getFilename(), record.getOptions(),
+                    storage.getBulkRoot(), storage.getScratchRoot());
+            job.setCacheKey(record.getCacheKey());
+            Path inputFile = job.getScratchDir().resolve(FilenameUtils.getName(record.getFilename()));
+
+            jobRegistry.register(job);
+            journal.resumed(job);
+            if (Boolean.TRUE.equals(record.getStream()) || !Files.exists(inputFile) || probe(job, inputFile) == null) {
+                log.warn("[{}] Cannot resume {}", job.getId(), record.getFilename());
+                job.changeStatus(JobStatus.FAILED);
+                continue;
+            }
+
+            log.info("[{}] Resuming {}", job.getId(), record.getFilename());
+            storage.track(job.getId(), inputFile.toFile().length());
+            job.setPlan(planner.plan(job));
+            job.getTimings().queued();
+            if (!Files.exists(job.getWorkDir().resolve(PreviewEncoder.PREVIEW_FILE))) {
+                submitPreview(job, inputFile);
+            } else {
+                job.setPreviewFile(job.getWorkDir().resolve(PreviewEncoder.PREVIEW_FILE));
+            }
+            scheduler.submit(job, () -> convertMp4ToWebmFile(job, inputFile));
         }
 
-        /* .webm 확장자일때 변환 생략 */
-        if (!file.getOriginalFilename().toLowerCase().endsWith(".webm")) {
-            File inputFile = new File(inputFileString);
+        /* 이어서 할 작업이 아닌 중간 파일 정리 */
+        storage.sweep(records.stream().map(JournalRecord::getJobId).collect(Collectors.toSet()));
+    }
 
-            File outputFile = new File(encodingFolderPath.resolve(
-                FilenameUtils.removeExtension(inputFileString) + ".webm"
-            ).toAbsolutePath().toString());
+    /**
+     * 미리보기를 먼저 만든다 (분산 모드에서도 등록한 노드에서 만든다). 변환하지 않는 작업은 결과가 바로 나오므로 만들지 않는다.
+     */
+    private void submitPreview(EncodingJob job, Path inputFile) {
+        if (job.getOptions().isPreview() && job.getPlan() == EncodingPlan.ENCODE) {
+            scheduler.submitPreview(() -> previewEncoder.encode(job, inputFile));
+        }
+    }
 
-            String outputFileString = String.valueOf(outputFile);
+    /**
+     * 작업 스트림에서 가져온 작업 실행 (분산 모드 워커)
+     * 원본은 작업 폴더에 있으며, 분석과 처리 방법 결정은 워커에서 다시 한다.
+     */
+    public void runClaimed(EncodingJob job) {
+        Path inputFile = job.getScratchDir().resolve(FilenameUtils.getName(job.getOriginalFilename()));
+        if (job.getMediaInfo() == null && probe(job, inputFile) == null) {
+            job.changeStatus(JobStatus.FAILED);
+            return;
+        }
+        job.setPlan(planner.plan(job));
+        convertMp4ToWebmFile(job, inputFile);
+    }
+
+    /**
+     * 캐시 조회 (등록 시). 캐시된 결과를 작업 폴더에 링크하고 작업을 완료한다.
+     *
+     * @return 캐시 적중 여부
+     */
+    private boolean completeFromCache(EncodingJob job, Path inputFile) {
+        Optional<Path> cached = transcodeCache.get(job.getCacheKey());
+        if (cached.isEmpty() || !job.changeStatus(JobStatus.RUNNING)) {
+            return false;
+        }
+        completeWith(job, inputFile, cached.get());
+        return true;
+    }
 
-            builder.directory(inputFile.getParentFile());
+    /**
+     * 등록 시 해시를 모르는 작업은 워커에서 원본을 읽어 캐시 키를 만들고 조회한다.
+     *
+     * @return 캐시 적중 여부 (작업 완료)
+     */
+    private boolean completeFromCacheInWorker(EncodingJob job, Path inputFile) {
+        try {
+            job.setCacheKey(transcodeCache.key(ContentHash.of(inputFile), cacheOptions(job)));
+        } catch (IOException e) {
+            log.warn("[{}] Failed to hash the input: {}", job.getId(), e.getMessage());
+            return false;
+        }
 
-            List<String> cmd = new ArrayList<>(List.of(
-                    getCWebMPath(),
-                    "-i",
-                    inputFile.getName(),
-                    "-c:v",
-                    "libvpx-vp9",
-                    "-vf",
-                    "scale=1920:1080",
-                    "-an",
-                    "-y",
-                    outputFileString
-            ));
+        Optional<Path> cached = transcodeCache.get(job.getCacheKey());
+        if (cached.isEmpty()) {
+            return false;
+        }
+        completeWith(job, inputFile, cached.get());
+        return true;
+    }
 
-            builder.command(cmd);
+    private void completeWith(EncodingJob job, Path inputFile, Path cached) {
+        Path outputFile = outputFileOf(job, inputFile);
+        try {
+            Files.createLink(outputFile, cached);
+        } catch (IOException | UnsupportedOperationException e) {
+            outputFile = cached;
+        }
 
+        List<Path> thumbnails = new ArrayList<>();
+        for (Path artifact : transcodeCache.getArtifacts(job.getCacheKey())) {
+            Path target = job.getWorkDir().resolve(artifact.getFileName());
             try {
-                log.info("BUILDER: {}", builder.directory());
-                log.info("COMMAND: {}", builder.command());
-                Process process = builder.start();
-                processes.add(process);
+                Files.createLink(target, artifact);
+            } catch (IOException | UnsupportedOperationException e) {
+                target = artifact;
+            }
+            thumbnails.add(target);
+        }
+        job.setThumbnailFiles(thumbnails);
+
+        log.info("[{}] Cache hit: {}", job.getId(), job.getCacheKey());
+        discardInput(job, inputFile);
+        job.setOutputFile(outputFile);
+        job.changeStatus(JobStatus.COMPLETED);
+    }
+
+    /**
+     * 단일 WebM 결과만 캐시한다. ABR 결과는 여러 파일로 이루어져 캐시하지 않는다.
+     */
+    private boolean isCacheable(EncodingJob job) {
+        return transcodeCache.isEnabled() && job.getOptions().getProfile() == EncodingProfile.SINGLE;
+    }
+
+    /**
+     * 캐시 키에 포함할 옵션. 목표 품질 모드의 CRF 는 원본으로 정해지므로 목표 점수를 대신 포함한다.
+     * 미리보기를 만드는 작업은 미리보기 설정도 포함한다.
+     */
+    private String cacheOptions(EncodingJob job) {
+        String options = String.join(" ", commands.encodeOptions(job.getOptions().getPreset(), null));
+        Double targetVmaf = job.getOptions().getTargetVmaf();
+        if (targetVmaf != null) {
+            options += " -target-vmaf " + targetVmaf;
+        }
+        return job.getOptions().isThumbnails() ? options + thumbnailGenerator.cacheOptions() : options;
+    }
+
+    /**
+     * 스트리밍 작업 등록
+     * 요청 본문을 디스크에 저장하지 않고 FFmpeg 표준 입력(pipe:0)으로 바로 전달한다.
+     * 워커 풀에 빈자리가 생겨 프로세스가 시작될 때까지 업로드 수신을 대기한다.
+     */
+    public EncodingJob submitStream(String originalFilename, InputStream body, EncodingOptions options) {
+        validateExtension(originalFilename, streamableExtensions);
+        /* 표준 입력은 한 번만 읽을 수 있어 미리보기를 따로 만들 수 없다 */
+        if (options.isPreview()) {
+            throw new BadRequestException(ErrorCode.INVALID_OPTION);
+        }
+        storage.checkFreeSpace(0);
+
+        EncodingJob job = createJob(originalFilename, options, 0);
+        jobRegistry.register(job);
+        journal.submitted(job, true);
+        job.getTimings().queued();
+        scheduler.submit(job, () -> convertMp4ToWebmFile(job, null));
+
+        Process prc;
+        try {
+            prc = job.getStarted().get();
+        } catch (ExecutionException e) {
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(job.getId());
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        }
+
+        /* 시작 전에 취소되었거나 실패한 작업 */
+        if (prc == null) {
+            throw new BadRequestException(ErrorCode.TASK_IS_ALREADY_FINISHED);
+        }
+
+        /* 파이프로 전달하면서 원본 해시 계산 (변환 완료 후 캐시에 등록) */
+        ContentHash contentHash = new ContentHash();
+        InputStream input = contentHash.wrap(body);
+        long startedAt = System.nanoTime();
+        try (OutputStream stdin = prc.getOutputStream()) {
+            long bytes = input.transferTo(stdin);
+            long elapsed = System.nanoTime() - startedAt;
+            metrics.recordUpload("stream", bytes, elapsed);
+            job.getTimings().setUploadMillis(TimeUnit.NANOSECONDS.toMillis(elapsed));
+            if (isCacheable(job)) {
+                job.setCacheKey(transcodeCache.key(contentHash.finish(), cacheOptions(job)));
+            }
+        } catch (IOException e) {
+            /* FFmpeg 가 먼저 종료된 경우 종료 코드로 작업 실패가 기록된다 */
+            log.error("[{}] Failed to pipe the upload: {}", job.getId(), e.getMessage());
+        }
+
+        return job;
+    }
+
+    /**
+     * 파일명 확인. 영상 여부는 업로드 후 FFprobe 로 확인한다.
+     */
+    public void validateFilename(String originalFilename) {
+        if (originalFilename == null || FilenameUtils.getName(originalFilename).isBlank()) {
+            throw new BadRequestException(ErrorCode.INVALID_FILE);
+        }
+    }
+
+    private void validateExtension(String originalFilename, List<String> extensions) {
+        if (originalFilename == null
+                || extensions.stream().noneMatch(originalFilename.toLowerCase()::endsWith)) {
+            throw new BadRequestException(ErrorCode.INVALID_FILE);
+        }
+    }
+
+    /**
+     * @param inputSize 원본 크기. 사용량 한도 안에서 예약하고 원본을 지울 때 해제한다.
+     */
+    private EncodingJob createJob(String originalFilename, EncodingOptions options, long inputSize) {
+        Double targetVmaf = options.getTargetVmaf();
+        if (targetVmaf != null && !(targetVmaf > 0 && targetVmaf <= 100)) {
+            throw new BadRequestException(ErrorCode.INVALID_OPTION);
+        }
+        if (options.isThumbnails() && options.getProfile() != EncodingProfile.SINGLE) {
+            throw new BadRequestException(ErrorCode.INVALID_OPTION);
+        }
+        /* LIVE 는 첫 세그먼트부터 재생할 수 있다 */
+        if (options.isPreview() && options.getProfile() == EncodingProfile.LIVE) {
+            throw new BadRequestException(ErrorCode.INVALID_OPTION);
+        }
+
+        EncodingJob job = new EncodingJob(UUID.randomUUID().toString(), originalFilename, options,
+                storage.getBulkRoot(), storage.getScratchRoot());
+        storage.reserve(job.getId(), inputSize);
+
+        try {
+            Files.createDirectories(job.getWorkDir());
+            Files.createDirectories(job.getScratchDir());
+        } catch (IOException e) {
+            log.error("Failed to create the job folder: {}", e.getMessage());
+            deleteWorkDir(job);
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        }
+
+        return job;
+    }
+
+    /**
+     * 변환
+     *
+     * @param inputPath 입력 파일. null 이면 표준 입력으로 받는다.
+     */
+    String convertMp4ToWebmFile(EncodingJob job, Path inputPath) {
+        /* 대기 중 취소된 작업 */
+        if (!job.changeStatus(JobStatus.RUNNING)) {
+            deleteWorkDir(job);
+            return job.getOriginalFilename();
+        }
+        journal.started(job);
+        Long queueWait = job.getTimings().started();
+        if (queueWait != null) {
+            metrics.recordQueueWait(queueWait);
+        }
+        job.getCompletion().thenAccept(done -> metrics.jobFinished(done.getStatus(), done.getTimings().getRunMillis()));
+
+        /* 이미 목표 형식인 WebM 은 변환 생략. 원본이 빠른 저장소에 있으면 작업 폴더로 옮긴다 */
+        if (job.getPlan() == EncodingPlan.COPY) {
+            Path outputFile = job.getWorkDir().resolve(inputPath.getFileName());
+            try {
+                if (!outputFile.equals(inputPath)) {
+                    Files.move(inputPath, outputFile);
+                }
             } catch (IOException e) {
-                log.error(e.getMessage(), e);
-                throw new BadRequestException(ErrorCode.INVALID_FILE);
+                log.error("[{}] Failed to move the output: {}", job.getId(), e.getMessage());
+                job.changeStatus(JobStatus.FAILED);
+                deleteWorkDir(job);
+                return job.getOriginalFilename();
+            }
+            discardInput(job, null);
+            job.setOutputFile(outputFile);
+            job.changeStatus(JobStatus.COMPLETED);
+            return job.getOriginalFilename();
+        }
+
+        if (job.getPlan() == EncodingPlan.ENCODE && inputPath != null && isCacheable(job) && job.getCacheKey() == null
+                && completeFromCacheInWorker(job, inputPath)) {
+            return job.getOriginalFilename();
+        }
+
+        Path outputFile = outputFileOf(job, inputPath).toAbsolutePath();
+        String input = inputPath != null ? inputPath.toAbsolutePath().toString() : "pipe:0";
+
+        try {
+            boolean success;
+            MediaInfo mediaInfo = job.getMediaInfo();
+            double duration = mediaInfo != null ? mediaInfo.getDuration() : 0;
+            progressPublisher.publishDuration(job, duration);
+
+            /* 목표 품질 모드: 샘플 구간으로 CRF 선택 (실패하면 기본 설정) */
+            if (job.getOptions().getTargetVmaf() != null && job.getOptions().getProfile() == EncodingProfile.SINGLE
+                    && job.getPlan() == EncodingPlan.ENCODE && inputPath != null) {
+                long analysisStartedAt = System.nanoTime();
+                crfSelector.select(job, inputPath, job.getOptions().getTargetVmaf());
+                long analysisMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - analysisStartedAt);
+                job.getTimings().setAnalysisMillis(analysisMillis);
+                metrics.recordAnalysis(analysisMillis);
             }
 
-            for (Process prc : processes) {
-                status = true;
-                try {
-                    /* 프로세스 출력 및 에러 스트림을 읽기 위한 스레드 */
-                    Thread outputThread = new Thread(() -> {
-                        try (BufferedReader outputReader = new BufferedReader(new InputStreamReader(prc.getErrorStream()))) {
-                            String outputLine;
-                            String duration = null;
-                            String time;
-                            while ((outputLine = outputReader.readLine()) != null && status) {
-                                /* 인코딩 할 총 시간 */
-                                if (outputLine.contains("Duration: ")) {
-                                    String remaining = outputLine.substring(outputLine.indexOf("Duration: ") + "Duration: ".length()).trim();
-                                    duration = remaining.substring(0, 11);
-                                    messagingTemplate.convertAndSend("/sub/message/duration", duration);
-                                }
-
-                                /* 인코딩 진행 중인 구간 */
-                                if (duration != null) {
-                                    if (outputLine.contains("time=") && !outputLine.contains("time=N/A")) {
-                                        String remaining = outputLine.substring(outputLine.indexOf("time=") + "time=".length()).trim();
-                                        time = remaining.substring(0, 11);
-                                        messagingTemplate.convertAndSend("/sub/message/time", time);
-                                    }
-                                }
-
-                                log.info("FFmpeg Output: {}", outputLine);
-                            }
-                        } catch (IOException e) {
-                            log.error("Failed to read FFmpeg output: {}", e.getMessage());
-                        }
-                    });
-
-                    /* 출력 읽기 스레드 시작 */
-                    outputThread.start();
-                    int exitCode = prc.waitFor();
-                    log.info("FFmpeg Exit Code: {}", exitCode);
-                    prc.destroy();
-                } catch (InterruptedException e) {
-                    log.error(e.getMessage());
+            long encodeStartedAt = System.nanoTime();
+
+            if (job.getPlan() == EncodingPlan.REMUX) {
+                List<String> cmd = commands.remuxWebm(input, outputFile.toString());
+                if (job.getOptions().isThumbnails()) {
+                    cmd.addAll(thumbnailGenerator.outputs(job, duration));
+                }
+                success = ffmpegRunner.run(job, job.getWorkDir().toFile(), cmd, duration,
+                        progress -> progressPublisher.publish(job, progress)) == 0;
+            } else if (job.getOptions().getProfile() == EncodingProfile.LIVE) {
+                success = liveDashEncoder.encode(job, input, duration);
+                outputFile = job.getOutputFile();
+            } else if (job.getOptions().getProfile() == EncodingProfile.ABR) {
+                success = abrEncoder.encode(job, input, duration);
+                outputFile = job.getOutputFile();
+            } else if (!job.getOptions().isThumbnails() && segmentEncoder.isApplicable(mediaInfo)) {
+                success = segmentEncoder.encode(job, inputPath, outputFile);
+            } else {
+                try (CpuGovernor.Lease lease = cpuGovernor.acquire()) {
+                    List<String> cmd = commands.encodeWebm(input, outputFile.toString(),
+                            job.getOptions().getPreset(), job.getCrf(), lease.getThreads());
+                    /* 같은 디코딩 결과로 포스터, 스프라이트 출력 */
+                    if (job.getOptions().isThumbnails()) {
+                        cmd.addAll(thumbnailGenerator.outputs(job, duration));
+                    }
+                    success = ffmpegRunner.run(job, job.getWorkDir().toFile(), cmd, duration,
+                            progress -> progressPublisher.publish(job, progress)) == 0;
                 }
             }
+
+            job.getTimings().setEncodeMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - encodeStartedAt));
+
+            if (success) {
+                job.setOutputFile(outputFile);
+                if (job.getOptions().isThumbnails()) {
+                    job.setThumbnailFiles(thumbnailGenerator.collect(job,
+                            duration > 0 ? duration : job.getProgress() != null ? job.getProgress().getOutTime() : 0));
+                }
+                if (job.getCacheKey() != null) {
+                    transcodeCache.put(job.getCacheKey(), outputFile, job.getThumbnailFiles());
+                }
+                job.changeStatus(JobStatus.COMPLETED);
+            } else {
+                job.changeStatus(JobStatus.FAILED);
+            }
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            job.changeStatus(JobStatus.FAILED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            /* 종료 중 중단: 재시작 후 기록(JobJournal)으로 이어서 하도록 상태와 원본을 그대로 둔다 */
+            if (inputPath != null && job.getStatus() == JobStatus.RUNNING) {
+                log.warn("[{}] Interrupted, will resume after restart", job.getId());
+                return job.getOriginalFilename();
+            }
+            job.changeStatus(JobStatus.FAILED);
+        }
+
+        if (job.getStatus() == JobStatus.CANCELLED) {
+            deleteWorkDir(job);
+        } else {
             /* 변환 완료 된 파일 삭제 */
-            inputFile.delete();
+            discardInput(job, inputPath);
         }
 
-        status = false;
+        return job.getOriginalFilename();
+    }
 
-        return CompletableFuture.completedFuture(file.getOriginalFilename());
+    /**
+     * 결과 파일 경로. 입력 파일명과 겹치면 접미사를 붙인다.
+     */
+    private Path outputFileOf(EncodingJob job, Path inputPath) {
+        String baseName = FilenameUtils.getBaseName(job.getOriginalFilename());
+        Path outputFile = job.getWorkDir().resolve(baseName + ".webm");
+        if (inputPath != null && outputFile.getFileName().equals(inputPath.getFileName())) {
+            outputFile = job.getWorkDir().resolve(baseName + "_encoded.webm");
+        }
+        return outputFile;
+    }
+
+    /**
+     * 입력 파일 분석. 실패하면 null
+     */
+    private MediaInfo probe(EncodingJob job, Path inputPath) {
+        try {
+            job.setMediaInfo(mediaProbe.probe(inputPath));
+        } catch (IOException e) {
+            log.warn("[{}] Failed to probe the input: {}", job.getId(), e.getMessage());
+        }
+        return job.getMediaInfo();
     }
 
     /**
      * FFmpeg WebM 변환 도구를 사용하여 비디오 변환
      */
     public String getCWebMPath() {
-        Path binaryPaths = Paths.get(
-                basePath,
-                "binary",
-                IS_UNIX ? "linux" :
-                        IS_MAC ? "mac" :
-                                IS_WINDOWS ? "windows" : "",
-                "bin",
-                "ffmpeg");
-        if (IS_UNIX || IS_WINDOWS || IS_MAC) {
-            return binaryPaths.toAbsolutePath().toString();
-        } else {
-            return null;
-        }
+        return binaries.getFFmpegPath();
     }
 
     /**
-     * 모든 프로세스 중지
+     * 작업 중지
+     * 해당 작업의 프로세스만 종료하며 다른 작업에는 영향을 주지 않는다.
      */
-    public void stopAllProcesses() {
-        if (!processes.isEmpty()) {
-            for (Process process : processes) {
-                process.destroy();
-            }
+    public EncodingJob cancel(String jobId) {
+        EncodingJob job = jobRegistry.get(jobId);
 
-            processes.clear();
-            status = false;
+        if (!job.changeStatus(JobStatus.CANCELLED)) {
+            throw new BadRequestException(ErrorCode.TASK_IS_ALREADY_FINISHED);
         }
 
-        try {
-            File encodingFolder = new File(basePath + File.separator + encodingPath);
-            FileUtils.cleanDirectory(encodingFolder); //하위 폴더와 파일 모두 삭제
-        } catch (IOException e) {
-            log.error(e.getMessage());
+        /* 실행 중인 작업은 프로세스 종료 후 워커가 작업 폴더를 정리한다 */
+        job.getProcesses().forEach(FFmpegRunner::destroyProcessTree);
+        jobEvents.ifAvailable(events -> events.publishCancel(jobId));
+
+        return job;
+    }
+
+    /**
+     * 원본과 중간 파일 폴더를 백그라운드에서 삭제하고 사용량 예약을 해제한다.
+     */
+    private void discardInput(EncodingJob job, Path inputPath) {
+        storage.deleteLater(inputPath);
+        if (!job.getScratchDir().equals(job.getWorkDir())) {
+            storage.deleteLater(job.getScratchDir());
         }
+        storage.release(job.getId());
+    }
+
+    private void deleteWorkDir(EncodingJob job) {
+        discardInput(job, null);
+        storage.deleteLater(job.getWorkDir()); //하위 폴더와 파일 모두 삭제
     }
 }
@@ -0,0 +1,143 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.dto.LiveSegmentEvent;
+import com.gu.encodingvideo.ffmpeg.CpuGovernor;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.job.EncodingJob;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 인코딩 중 재생 (LIVE)
+ * FFmpeg dash muxer 로 WebM 세그먼트와 라이브 manifest 를 기록하고,
+ * 다음 세그먼트가 시작되어 완성된 세그먼트를 바로 공개하고 알린다.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class LiveDashEncoder {
+
+    public static final String MANIFEST = "manifest.mpd";
+
+    /* FFmpegCommands.encodeLiveDash 의 -media_seg_name */
+    private static final Pattern SEGMENT_NAME = Pattern.compile("chunk-\\d{5,}\\.webm");
+
+    /* 세그먼트 길이 (초). 재생 시작까지의 지연 시간 */
+    @Value("${app-config.encoding.live.segment-duration:4}")
+    private double segmentDuration;
+
+    private final FFmpegCommands commands;
+
+    private final FFmpegRunner ffmpegRunner;
+
+    private final CpuGovernor cpuGovernor;
+
+    private final EncodingProgressPublisher progressPublisher;
+
+    /**
+     * @param input 입력 파일명 또는 pipe:0
+     * @return 성공 여부
+     */
+    public boolean encode(EncodingJob job, String input, double duration) throws IOException, InterruptedException {
+        int exitCode;
+        try (CpuGovernor.Lease lease = cpuGovernor.acquire()) {
+            exitCode = ffmpegRunner.run(job, job.getWorkDir().toFile(),
+                    commands.encodeLiveDash(input, MANIFEST, segmentDuration, job.getOptions().getPreset(),
+                            lease.getThreads()),
+                    duration,
+                    progress -> {
+                        progressPublisher.publish(job, progress);
+                        if (hasNewSegments(job, progress.getOutTime())) {
+                            announce(job, progress.getOutTime(), false);
+                        }
+                    });
+        }
+        if (exitCode != 0) {
+            return false;
+        }
+
+        double outTime = job.getProgress() != null ? job.getProgress().getOutTime() : duration;
+        announce(job, outTime, true);
+
+        List<Path> files = new ArrayList<>();
+        files.add(job.getWorkDir().resolve(FFmpegCommands.LIVE_INIT_SEGMENT));
+        job.getLiveSegments().forEach(name -> files.add(job.getWorkDir().resolve(name)));
+        job.setRenditionFiles(files);
+        job.setOutputFile(job.getWorkDir().resolve(MANIFEST));
+        return true;
+    }
+
+    /**
+     * 세그먼트 경계(키프레임 강제)를 지나 공개하지 않은 완성 세그먼트가 있을 때만 폴더를 읽는다.
+     * 다음 세그먼트 파일이 아직 생기지 않았으면 생길 때까지 진행 정보마다 다시 확인한다.
+     */
+    boolean hasNewSegments(EncodingJob job, double outTime) {
+        return job.getLiveSegments().size() < (long) Math.floor(outTime / segmentDuration);
+    }
+
+    private void announce(EncodingJob job, double outTime, boolean finished) {
+        List<LiveSegmentEvent> events;
+        try {
+            events = collectSegments(job, outTime, finished);
+        } catch (IOException e) {
+            log.warn("[{}] Failed to list live segments: {}", job.getId(), e.getMessage());
+            return;
+        }
+        events.forEach(event -> progressPublisher.publishSegment(job, event));
+    }
+
+    /**
+     * 새로 완성된 세그먼트를 공개 목록에 추가한다. 인코딩 중에는 마지막 (기록 중인) 세그먼트를 제외한다.
+     *
+     * @return 새로 공개한 세그먼트
+     */
+    static List<LiveSegmentEvent> collectSegments(EncodingJob job, double outTime, boolean finished) throws IOException {
+        List<String> written;
+        try (Stream<Path> files = Files.list(job.getWorkDir())) {
+            written = files.map(path -> path.getFileName().toString())
+                    .filter(name -> SEGMENT_NAME.matcher(name).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        int complete = finished ? written.size() : written.size() - 1;
+        List<LiveSegmentEvent> events = new ArrayList<>();
+        List<String> segments = job.getLiveSegments();
+        synchronized (segments) {
+            for (int i = segments.size(); i < complete; i++) {
+                String name = written.get(i);
+                segments.add(name);
+                events.add(LiveSegmentEvent.builder()
+                        .name(name)
+                        .index(i)
+                        .outTime(outTime)
+                        .build());
+            }
+        }
+        return events;
+    }
+
+    /**
+     * 인코딩 중에 공개할 수 있는 파일인지 (manifest, 초기화 세그먼트, 완성된 세그먼트)
+     */
+    public static boolean isPublished(EncodingJob job, String filename) {
+        return MANIFEST.equals(filename)
+                || FFmpegCommands.LIVE_INIT_SEGMENT.equals(filename)
+                || job.getLiveSegments().contains(filename);
+    }
+}
@@ -0,0 +1,95 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.dto.PreviewEvent;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.JobStatus;
+import com.gu.encodingvideo.metrics.EncodingMetrics;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 저해상도 미리보기 (요청의 preview)
+ * 전체 인코딩과 별도로 미리보기 워커 풀에서 실시간 설정으로 빠르게 만들고, 완성되면 알린다.
+ * 스레드는 CpuGovernor 를 거치지 않고 예산에서 따로 빼 둔 몫(threads)을 쓰므로 전체 인코딩을 기다리지 않는다.
+ * 전체 인코딩은 그대로 진행한다.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class PreviewEncoder {
+
+    public static final String PREVIEW_FILE = "preview.webm";
+
+    /* 기록 중인 파일. 완성되면 PREVIEW_FILE 로 이름을 바꾼다 */
+    private static final String PARTIAL_FILE = "preview.part.webm";
+
+    @Value("${app-config.encoding.preview.height:360}")
+    private int height;
+
+    @Value("${app-config.encoding.preview.bitrate:400k}")
+    private String bitrate;
+
+    /* 미리보기 프로세스당 스레드 수 (인코딩 예산에서 뺀다) */
+    @Value("${app-config.encoding.preview.threads:2}")
+    private int threads;
+
+    private final FFmpegCommands commands;
+
+    private final FFmpegRunner ffmpegRunner;
+
+    private final EncodingProgressPublisher progressPublisher;
+
+    private final EncodingMetrics metrics;
+
+    /**
+     * 전체 인코딩이 먼저 끝났거나 취소된 작업은 만들지 않는다.
+     */
+    public void encode(EncodingJob job, Path inputPath) {
+        if (job.getStatus().isFinished()) {
+            return;
+        }
+
+        Path partial = job.getWorkDir().resolve(PARTIAL_FILE);
+        try {
+            int exitCode = ffmpegRunner.run(job, job.getWorkDir().toFile(),
+                    commands.encodePreview(inputPath.toAbsolutePath().toString(), partial.toString(), height, bitrate,
+                            Math.max(1, threads)),
+                    job.getMediaInfo() != null ? job.getMediaInfo().getDuration() : 0,
+                    progress -> { });
+            if (exitCode != 0 || job.getStatus() == JobStatus.CANCELLED) {
+                log.warn("[{}] Preview failed: exit code {}", job.getId(), exitCode);
+                Files.deleteIfExists(partial);
+                return;
+            }
+
+            Path preview = Files.move(partial, job.getWorkDir().resolve(PREVIEW_FILE), StandardCopyOption.ATOMIC_MOVE);
+            job.setPreviewFile(preview);
+        } catch (IOException e) {
+            log.warn("[{}] Preview failed: {}", job.getId(), e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long previewMillis = job.getTimings().previewReady();
+        metrics.recordPreview(previewMillis);
+        log.info("[{}] Preview ready in {} ms", job.getId(), previewMillis);
+        progressPublisher.publishPreview(job, PreviewEvent.builder()
+                .name(PREVIEW_FILE)
+                .previewMillis(previewMillis)
+                .build());
+    }
+}
@@ -0,0 +1,316 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.ffmpeg.CpuGovernor;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import com.gu.encodingvideo.ffmpeg.MediaProbe;
+import com.gu.encodingvideo.ffmpeg.ProcessSupervisor;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.JobJournal;
+import com.gu.encodingvideo.storage.ScratchStorage;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 구간 병렬 인코딩
+ * 입력을 키프레임 기준으로 나누어 여러 FFmpeg 프로세스로 동시에 인코딩한 뒤
+ * concat demuxer 로 재인코딩 없이 이어 붙인다.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class SegmentEncoder {
+
+    @Value("${app-config.encoding.segment.enabled:false}")
+    private boolean enabled;
+
+    /* 이보다 짧은 영상은 단일 프로세스로 인코딩 (초) */
+    @Value("${app-config.encoding.segment.min-duration:300}")
+    private double minDuration;
+
+    /* 구간 길이 (초) */
+    @Value("${app-config.encoding.segment.segment-duration:120}")
+    private double segmentDuration;
+
+    private final MediaProbe mediaProbe;
+
+    private final FFmpegCommands commands;
+
+    private final FFmpegRunner ffmpegRunner;
+
+    private final CpuGovernor cpuGovernor;
+
+    private final EncodingProgressPublisher progressPublisher;
+
+    private final JobJournal journal;
+
+    private final ScratchStorage storage;
+
+    /* 구간 인코딩 전용 워커 풀 (AsyncConfig) */
+    private final ThreadPoolTaskExecutor segmentExecutor;
+
+    /**
+     * 구간 병렬 인코딩 대상 여부
+     */
+    public boolean isApplicable(MediaInfo mediaInfo) {
+        return enabled
+                && mediaInfo != null
+                && mediaInfo.getDuration() >= Math.max(minDuration, segmentDuration * 2);
+    }
+
+    /**
+     * @return 성공 여부
+     */
+    public boolean encode(EncodingJob job, Path inputPath, Path outputFile) throws IOException, InterruptedException {
+        double totalDuration = job.getMediaInfo().getDuration();
+        List<Double> boundaries = boundaries(mediaProbe.keyframeTimes(inputPath), totalDuration);
+
+        if (boundaries.isEmpty()) {
+            log.info("[{}] No usable keyframes, falling back to a single process", job.getId());
+            try (CpuGovernor.Lease lease = cpuGovernor.acquire()) {
+                return ffmpegRunner.run(job, job.getWorkDir().toFile(),
+                        commands.encodeWebm(inputPath.toAbsolutePath().toString(), outputFile.toString(),
+                                job.getOptions().getPreset(), job.getCrf(), lease.getThreads()),
+                        totalDuration, progress -> progressPublisher.publish(job, progress)) == 0;
+            }
+        }
+
+        Path segmentDir = job.getScratchDir().resolve("segments");
+        boolean interrupted = false;
+        try {
+            /* 1. 키프레임에서 분할 (스트림 복사). 재시작 전에 분할을 마쳤으면 그대로 사용 */
+            if (!journal.isSplit(job.getId()) || !Files.isDirectory(segmentDir)) {
+                FileUtils.deleteQuietly(segmentDir.toFile());
+                Files.createDirectories(segmentDir);
+                int exitCode = ffmpegRunner.run(job, segmentDir.toFile(),
+                        commands.splitAtKeyframes(inputPath.toAbsolutePath().toString(), boundaries, "source_%04d.mkv"),
+                        totalDuration, progress -> {
+                        });
+                if (exitCode != 0) {
+                    return false;
+                }
+                journal.split(job);
+            } else {
+                log.info("[{}] Resuming from the journal: {} segments done", job.getId(),
+                        journal.segmentsDone(job.getId()).size());
+            }
+
+            List<Path> sources;
+            try (Stream<Path> files = Files.list(segmentDir)) {
+                sources = files.filter(file -> file.getFileName().toString().startsWith("source_"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+
+            /* 2. 구간별 병렬 인코딩 (완료 기록이 있는 구간은 건너뜀) */
+            FFmpegProgress[] segments = new FFmpegProgress[sources.size()];
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            List<Path> encoded = new ArrayList<>();
+            Set<Integer> done = journal.segmentsDone(job.getId());
+
+            for (int i = 0; i < sources.size(); i++) {
+                int index = i;
+                String source = sources.get(i).getFileName().toString();
+                Path target = segmentDir.resolve(source.replace("source_", "encoded_").replace(".mkv", ".webm"));
+                encoded.add(target);
+
+                if (done.contains(index) && Files.exists(target)) {
+                    double length = segmentLength(boundaries, index, totalDuration);
+                    segments[index] = FFmpegProgress.of(length, 0, 0, 0, 0, length, true);
+                    futures.add(CompletableFuture.completedFuture(0));
+                    continue;
+                }
+
+                try {
+                    futures.add(CompletableFuture.supplyAsync(() -> {
+                        /* 구간마다 시작 시점의 실행 수로 스레드를 다시 배분받는다. 워커는 구간이 끝날 때까지 대기 (동시 구간 수 제한) */
+                        try (CpuGovernor.Lease lease = cpuGovernor.acquire()) {
+                            int exitCode = ffmpegRunner.run(job, segmentDir.toFile(),
+                                    commands.encodeWebm(source, target.toString(), job.getOptions().getPreset(), job.getCrf(), lease.getThreads()),
+                                    0, progress -> publishTotal(job, segments, index, progress, totalDuration));
+                            if (exitCode == 0) {
+                                journal.segmentDone(job, index);
+                            }
+                            return exitCode;
+                        } catch (IOException e) {
+                            throw new CompletionException(e);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new CompletionException(e);
+                        }
+                    }, segmentExecutor));
+                } catch (RejectedExecutionException e) {
+                    /* 구간 워커 풀이 먼저 종료됨: 재시작 후 이어서 한다 */
+                    job.abortProcesses();
+                    futures.forEach(future -> future.cancel(false));
+                    throw new InterruptedException("Segment executor is shut down");
+                }
+            }
+
+            if (!awaitSegments(job, futures)) {
+                return false;
+            }
+
+            /* 3. 재인코딩 없이 이어 붙이기 */
+            Path listFile = segmentDir.resolve("concat.txt");
+            Files.write(listFile, encoded.stream()
+                    .map(file -> "file '" + file.getFileName() + "'")
+                    .collect(Collectors.toList()));
+
+            boolean success = ffmpegRunner.run(job, segmentDir.toFile(),
+                    commands.concat(listFile.getFileName().toString(), outputFile.toString()),
+                    totalDuration, progress -> {
+                    }) == 0;
+            if (success) {
+                FFmpegProgress last = job.getProgress();
+                progressPublisher.publish(job, FFmpegProgress.of(totalDuration,
+                        last != null ? last.getFrame() : 0, 0, 0, 0, totalDuration, true));
+            }
+            return success;
+        } catch (InterruptedException e) {
+            /* 종료 중 중단: 재시작 후 이어서 하도록 구간 파일을 남긴다 */
+            interrupted = true;
+            throw e;
+        } finally {
+            if (!interrupted) {
+                storage.deleteLater(segmentDir);
+            }
+        }
+    }
+
+    /**
+     * 구간 길이 (경계 목록 기준)
+     */
+    private static double segmentLength(List<Double> boundaries, int index, double totalDuration) {
+        if (index > boundaries.size()) {
+            return 0;
+        }
+        double start = index == 0 ? 0 : boundaries.get(index - 1);
+        double end = index < boundaries.size() ? boundaries.get(index) : totalDuration;
+        return end - start;
+    }
+
+    /**
+     * 구간 경계. 목표 구간 길이마다 그 이후의 첫 키프레임을 고른다.
+     */
+    List<Double> boundaries(List<Double> keyframes, double totalDuration) {
+        List<Double> boundaries = new ArrayList<>();
+        double target = segmentDuration;
+        for (double keyframe : keyframes) {
+            if (keyframe >= target && keyframe < totalDuration - segmentDuration / 2) {
+                boundaries.add(keyframe);
+                target = keyframe + segmentDuration;
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * 모든 구간이 끝날 때까지 대기. 하나라도 실패하면 작업을 중단 표시하여 나머지를 중지한다.
+     * 대기 중인 구간은 취소되고, 스레드를 할당받아 시작 직전인 구간도 프로세스를 시작하지 않는다.
+     *
+     * @throws InterruptedException 구간이 종료(재배포)로 중단된 경우. 작업을 실패로 처리하지 않고 재시작 후 이어서 한다.
+     */
+    static boolean awaitSegments(EncodingJob job, List<CompletableFuture<Integer>> futures) throws InterruptedException {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        futures.forEach(future -> future.whenComplete((exitCode, e) -> {
+            if (e != null || exitCode != 0) {
+                failed.complete(null);
+            }
+        }));
+
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])), failed).get();
+        } catch (ExecutionException ignored) {
+            /* 아래에서 실패로 처리 */
+        } catch (InterruptedException e) {
+            job.abortProcesses();
+            futures.forEach(future -> future.cancel(false));
+            throw e;
+        }
+
+        if (failed.isDone()) {
+            job.abortProcesses();
+            futures.forEach(future -> future.cancel(false));
+            if (futures.stream().anyMatch(SegmentEncoder::isInterrupted)) {
+                log.warn("[{}] Segment encoding interrupted, will resume after restart", job.getId());
+                throw new InterruptedException("Segment encoding interrupted");
+            }
+            log.error("[{}] Segment encoding failed", job.getId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 종료 중 중단된 구간 (FFmpegRunner.run 의 InterruptedException, 감시 종료)
+     */
+    private static boolean isInterrupted(CompletableFuture<Integer> future) {
+        if (!future.isCompletedExceptionally() || future.isCancelled()) {
+            return false;
+        }
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof InterruptedException || cause instanceof ProcessSupervisor.ShutdownException) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 구간별 진행 정보를 합쳐 하나의 작업 진행 정보로 전송
+     */
+    private void publishTotal(EncodingJob job, FFmpegProgress[] segments, int index, FFmpegProgress progress,
+                              double totalDuration) {
+        double outTime = 0;
+        long frame = 0;
+        double fps = 0;
+        double bitrate = 0;
+        double speed = 0;
+        int running = 0;
+        synchronized (segments) {
+            segments[index] = progress;
+            for (FFmpegProgress segment : segments) {
+                if (segment == null) {
+                    continue;
+                }
+                outTime += segment.getOutTime();
+                frame += segment.getFrame();
+                if (!segment.isEnd()) {
+                    fps += segment.getFps();
+                    bitrate += segment.getBitrate();
+                    speed += segment.getSpeed();
+                    running++;
+                }
+            }
+        }
+        progressPublisher.publish(job, FFmpegProgress.of(outTime, frame, fps,
+                running > 0 ? bitrate / running : 0, speed, totalDuration, false));
+    }
+}
@@ -0,0 +1,151 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import com.gu.encodingvideo.job.EncodingJob;
+import lombok.AccessLevel;
+import lombok.extern.slf4j.Slf4j;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 포스터, 탐색 미리보기 스프라이트, WebVTT
+ * 인코딩 명령에 출력을 더하는 방식이라 FFmpeg 가 원본을 한 번만 디코딩하고 같은 프레임을 나누어 쓴다.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class ThumbnailGenerator {
+
+    public static final String POSTER = "poster.jpg";
+
+    public static final String VTT = "thumbnails.vtt";
+
+    private static final String SPRITE_PREFIX = "sprite-";
+
+    /* 미리보기 간격(초) */
+    @Value("${app-config.encoding.thumbnails.interval:10}")
+    int interval;
+
+    /* 미리보기 1장 가로 크기 */
+    @Value("${app-config.encoding.thumbnails.width:160}")
+    int width;
+
+    /* 스프라이트 1장에 들어가는 미리보기 수 (columns x rows) */
+    @Value("${app-config.encoding.thumbnails.columns:10}")
+    int columns;
+
+    @Value("${app-config.encoding.thumbnails.rows:10}")
+    int rows;
+
+    /* 포스터 위치 (전체 길이 대비 비율), 최대 위치(초) */
+    @Value("${app-config.encoding.thumbnails.poster-position:0.1}")
+    double posterPosition;
+
+    @Value("${app-config.encoding.thumbnails.poster-max-seconds:10}")
+    double posterMaxSeconds;
+
+    /**
+     * 캐시 키에 포함할 설정
+     */
+    public String cacheOptions() {
+        return " -thumbnails " + interval + ":" + width + ":" + columns + "x" + rows;
+    }
+
+    /**
+     * 인코딩 명령 뒤에 붙일 출력 (포스터 1장, 스프라이트)
+     *
+     * @param duration 입력 총 길이(초). 0 이하면 모름 (첫 프레임을 포스터로)
+     */
+    public List<String> outputs(EncodingJob job, double duration) {
+        double posterAt = duration > 0 ? Math.min(duration * posterPosition, posterMaxSeconds) : 0;
+        return List.of(
+                "-map", "0:v:0",
+                "-vf", "select='isnan(prev_selected_t)*gte(t," + posterAt + ")'",
+                "-frames:v", "1",
+                "-update", "1",
+                "-q:v", "3",
+                "-y", POSTER,
+                "-map", "0:v:0",
+                "-vf", "fps=1/" + interval + ",scale=" + width + ":" + thumbnailHeight(job.getMediaInfo())
+                        + ",tile=" + columns + "x" + rows,
+                "-q:v", "5",
+                "-y", SPRITE_PREFIX + "%03d.jpg"
+        );
+    }
+
+    /**
+     * 변환이 끝난 뒤 스프라이트 위치로 WebVTT 를 만든다.
+     *
+     * @param duration 결과 길이(초)
+     * @return 포스터, 스프라이트, WebVTT
+     */
+    public List<Path> collect(EncodingJob job, double duration) throws IOException {
+        Path workDir = job.getWorkDir();
+        List<Path> sprites;
+        try (Stream<Path> files = Files.list(workDir)) {
+            sprites = files.filter(path -> path.getFileName().toString().startsWith(SPRITE_PREFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        Path vtt = workDir.resolve(VTT);
+        Files.writeString(vtt, webVtt(sprites.stream().map(path -> path.getFileName().toString())
+                .collect(Collectors.toList()), duration, thumbnailHeight(job.getMediaInfo())));
+
+        List<Path> files = new ArrayList<>();
+        if (Files.exists(workDir.resolve(POSTER))) {
+            files.add(workDir.resolve(POSTER));
+        }
+        files.addAll(sprites);
+        files.add(vtt);
+        return files;
+    }
+
+    /**
+     * 미리보기 k 는 k*interval 초부터 다음 미리보기까지. 위치는 스프라이트#xywh
+     */
+    String webVtt(List<String> sprites, double duration, int height) {
+        int perSprite = columns * rows;
+        long count = duration > 0 ? (long) Math.ceil(duration / interval) : (long) sprites.size() * perSprite;
+        count = Math.min(count, (long) sprites.size() * perSprite);
+
+        StringBuilder vtt = new StringBuilder("WEBVTT\n");
+        for (int k = 0; k < count; k++) {
+            double start = (double) k * interval;
+            double end = duration > 0 ? Math.min(start + interval, duration) : start + interval;
+            int index = k % perSprite;
+            vtt.append('\n')
+                    .append(vttTime(start)).append(" --> ").append(vttTime(end)).append('\n')
+                    .append(sprites.get(k / perSprite))
+                    .append("#xywh=").append((index % columns) * width).append(',').append((index / columns) * height)
+                    .append(',').append(width).append(',').append(height).append('\n');
+        }
+        return vtt.toString();
+    }
+
+    /* WebVTT 시간 표기 HH:MM:SS.mmm */
+    private static String vttTime(double seconds) {
+        long millis = Math.round(seconds * 1000);
+        return String.format("%02d:%02d:%02d.%03d",
+                millis / 3600000, (millis / 60000) % 60, (millis / 1000) % 60, millis % 1000);
+    }
+
+    /**
+     * 원본 비율을 유지한 세로 크기 (짝수). 분석 정보가 없으면 16:9
+     */
+    int thumbnailHeight(MediaInfo mediaInfo) {
+        if (mediaInfo == null || mediaInfo.getWidth() <= 0 || mediaInfo.getHeight() <= 0) {
+            return Math.max(2, (int) Math.round(width * 9 / 16.0 / 2) * 2);
+        }
+        return Math.max(2, (int) Math.round((double) width * mediaInfo.getHeight() / mediaInfo.getWidth() / 2) * 2);
+    }
+}
@@ -0,0 +1,115 @@
+package com.gu.encodingvideo.admission;
+
+import com.gu.encodingvideo.exception.TooManyRequestsException;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.JobScheduler;
+import com.gu.encodingvideo.metrics.EncodingMetrics;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 입장 제어
+ * 작업의 예상 비용(1080p 초)과 대기열(대기 중 + 실행 중인 작업의 남은 비용)을 워커 처리 속도로 나누어
+ * 예상 완료 시간이 한도를 넘거나 대기 작업 수가 한도에 이르면 429 와 Retry-After 로 거절한다.
+ * 업로드 전에는 요청 크기로, 분석 후에는 길이 x 해상도로 비용을 계산한다.
+ * 분산 모드에서는 작업이 이 노드의 대기열(JobScheduler)을 거치지 않으므로 확인하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class AdmissionControl {
+
+    @Value("${app-config.admission.enabled:true}")
+    private boolean enabled;
+
+    /* 분산 모드: 작업은 Redis 작업 스트림으로 가고 이 노드의 대기열은 항상 비어 있다 */
+    @Value("${app-config.distributed.enabled:false}")
+    private boolean distributed;
+
+    @Value("${app-config.admission.max-pending-jobs:100}")
+    private int maxPendingJobs;
+
+    /* 대기열 예상 완료 시간 한도 (초) */
+    @Value("${app-config.admission.max-backlog-seconds:1800}")
+    private double maxBacklogSeconds;
+
+    /* 업로드 크기로 비용을 추정할 때 1080p 1초에 해당하는 크기 */
+    @Value("${app-config.admission.bytes-per-cost:1048576}")
+    private long bytesPerCost;
+
+    private final JobScheduler scheduler;
+
+    private final EncodingMetrics metrics;
+
+    @PostConstruct
+    public void start() {
+        if (enabled && distributed) {
+            log.warn("Admission control is disabled in distributed mode: jobs bypass the local scheduler");
+        }
+    }
+
+    /**
+     * 업로드 본문을 받기 전 확인
+     *
+     * @param bytes 요청 크기. 모르면 음수
+     */
+    public void checkUpload(long bytes) {
+        check(bytes > 0 ? (double) bytes / Math.max(1, bytesPerCost) : 0, "upload");
+    }
+
+    /**
+     * 분석 후 확인
+     */
+    public void admit(EncodingJob job) {
+        check(JobScheduler.cost(job), "probe");
+    }
+
+    private void check(double cost, String stage) {
+        if (!enabled || distributed) {
+            return;
+        }
+        JobScheduler.Backlog backlog = scheduler.backlog();
+        long retryAfter = retryAfter(backlog, cost, maxPendingJobs, maxBacklogSeconds);
+        if (retryAfter > 0) {
+            metrics.admissionRejected(stage);
+            throw new TooManyRequestsException(retryAfter, backlog.getPending() + 1);
+        }
+    }
+
+    /**
+     * @return 다시 시도할 때까지 기다릴 시간 (초). 받을 수 있으면 0
+     */
+    static long retryAfter(JobScheduler.Backlog backlog, double cost, int maxPendingJobs, double maxBacklogSeconds) {
+        /* 빈 워커가 있으면 바로 실행된다 */
+        if (backlog.getIdleWorkers() > 0 && backlog.getPending() == 0) {
+            return 0;
+        }
+
+        double throughput = Math.max(1e-6, backlog.getWorkers() * backlog.getSpeed());
+        double backlogCost = backlog.getPendingCost() + backlog.getRunningCost();
+        double wait = 0;
+
+        /* 예상 완료 시간이 한도 안으로 줄어들 때까지 */
+        double finish = (backlogCost + cost) / throughput;
+        if (finish > maxBacklogSeconds) {
+            wait = finish - maxBacklogSeconds;
+        }
+
+        /* 대기 작업이 한도 아래로 줄어들 때까지 (평균 비용으로 추정) */
+        if (backlog.getPending() >= maxPendingJobs) {
+            int jobs = backlog.getPending() + backlog.getWorkers() - backlog.getIdleWorkers();
+            double averageCost = jobs > 0 ? backlogCost / jobs : 0;
+            int excess = backlog.getPending() - maxPendingJobs + 1;
+            wait = Math.max(wait, Math.max(1, excess * averageCost / throughput));
+        }
+
+        return wait > 0 ? (long) Math.ceil(wait) : 0;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gu.encodingvideo.admission;
+
+import com.gu.encodingvideo.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * 업로드 요청을 본문을 읽기 전에 확인 (multipart 해석 전)
+ * 거절하면 연결을 닫아 남은 본문을 받지 않는다. 응답은 ApiExceptionHandler 가 만든다.
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> UPLOAD_PATHS = Set.of("/api/v1/encode", "/api/v1/encode/batch", "/api/v1/encode/stream");
+
+    private final AdmissionControl admissionControl;
+
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public AdmissionFilter(AdmissionControl admissionControl,
+                           @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        this.admissionControl = admissionControl;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"POST".equals(request.getMethod()) || !UPLOAD_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            admissionControl.checkUpload(request.getContentLengthLong());
+        } catch (TooManyRequestsException e) {
+            response.setHeader(HttpHeaders.CONNECTION, "close");
+            exceptionResolver.resolveException(request, response, null, e);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,30 @@
+package com.gu.encodingvideo.cache;
+
+import java.util.Optional;
+
+/**
+ * 변환 결과 캐시 색인 (최근 사용 순서 관리)
+ */
+public interface CacheIndex {
+
+    /**
+     * 조회 후 최근 사용 시각 갱신
+     *
+     * @return 캐시 파일명
+     */
+    Optional<String> touch(String key);
+
+    void put(String key, String fileName, long size);
+
+    /**
+     * 가장 오래 사용하지 않은 항목 제거
+     *
+     * @return 제거된 캐시 파일명
+     */
+    Optional<String> removeEldest();
+
+    /**
+     * 캐시 파일 전체 크기(byte)
+     */
+    long totalSize();
+}
@@ -0,0 +1,129 @@
+package com.gu.encodingvideo.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 원본 해시 (캐시 키)
+ * BLOCK_SIZE 단위 블록마다 SHA-256 을 구하고, 블록 해시를 순서대로 이어 다시 SHA-256 한다.
+ * 블록 경계에서 시작하는 분할 업로드 조각은 도착 순서와 관계없이 따로 계산하여 합칠 수 있다.
+ */
+public class ContentHash {
+
+    /* 분할 업로드 조각 크기가 이 값의 배수면 받으면서 계산한다 */
+    public static final int BLOCK_SIZE = 1 << 20;
+
+    private final MessageDigest block = TranscodeCache.newDigest();
+
+    private final ByteArrayOutputStream blockDigests = new ByteArrayOutputStream();
+
+    private int blockBytes;
+
+    public void update(byte[] buffer, int offset, int length) {
+        while (length > 0) {
+            int count = Math.min(length, BLOCK_SIZE - blockBytes);
+            block.update(buffer, offset, count);
+            blockBytes += count;
+            offset += count;
+            length -= count;
+            if (blockBytes == BLOCK_SIZE) {
+                finishBlock();
+            }
+        }
+    }
+
+    public void update(ByteBuffer buffer) {
+        while (buffer.hasRemaining()) {
+            int count = Math.min(buffer.remaining(), BLOCK_SIZE - blockBytes);
+            ByteBuffer slice = buffer.slice();
+            slice.limit(count);
+            block.update(slice);
+            buffer.position(buffer.position() + count);
+            blockBytes += count;
+            if (blockBytes == BLOCK_SIZE) {
+                finishBlock();
+            }
+        }
+    }
+
+    private void finishBlock() {
+        blockDigests.writeBytes(block.digest());
+        blockBytes = 0;
+    }
+
+    /**
+     * 지금까지 받은 블록의 해시 (마지막 블록은 짧을 수 있다)
+     */
+    public byte[] blockDigests() {
+        if (blockBytes > 0) {
+            finishBlock();
+        }
+        return blockDigests.toByteArray();
+    }
+
+    /**
+     * @return 원본 해시 (hex)
+     */
+    public String finish() {
+        return combine(List.of(blockDigests()));
+    }
+
+    /**
+     * 순서대로 나열한 조각별 블록 해시로 원본 해시를 구한다.
+     */
+    public static String combine(List<byte[]> chunkDigests) {
+        MessageDigest digest = TranscodeCache.newDigest();
+        chunkDigests.forEach(digest::update);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 파일 해시. 한 번 순차로 읽는다.
+     */
+    public static String of(Path file) throws IOException {
+        ContentHash hash = new ContentHash();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                hash.update(buffer);
+                buffer.clear();
+            }
+        }
+        return hash.finish();
+    }
+
+    /**
+     * 읽으면서 해시를 계산하는 스트림
+     */
+    public InputStream wrap(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int value = super.read();
+                if (value != -1) {
+                    update(new byte[]{(byte) value}, 0, 1);
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    update(buffer, offset, count);
+                }
+                return count;
+            }
+        };
+    }
+}
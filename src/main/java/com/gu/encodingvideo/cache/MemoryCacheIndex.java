@@ -0,0 +1,51 @@
+package com.gu.encodingvideo.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 메모리 캐시 색인 (접근 순서 LinkedHashMap)
+ */
+public class MemoryCacheIndex implements CacheIndex {
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalSize;
+
+    @Override
+    public synchronized Optional<String> touch(String key) {
+        Entry entry = entries.get(key);
+        return Optional.ofNullable(entry).map(Entry::fileName);
+    }
+
+    @Override
+    public synchronized void put(String key, String fileName, long size) {
+        Entry previous = entries.put(key, new Entry(fileName, size));
+        if (previous != null) {
+            totalSize -= previous.size();
+        }
+        totalSize += size;
+    }
+
+    @Override
+    public synchronized Optional<String> removeEldest() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        if (!iterator.hasNext()) {
+            return Optional.empty();
+        }
+        Entry eldest = iterator.next().getValue();
+        iterator.remove();
+        totalSize -= eldest.size();
+        return Optional.of(eldest.fileName());
+    }
+
+    @Override
+    public synchronized long totalSize() {
+        return totalSize;
+    }
+
+    private record Entry(String fileName, long size) {
+    }
+}
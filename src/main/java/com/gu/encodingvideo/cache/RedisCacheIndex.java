@@ -0,0 +1,74 @@
+package com.gu.encodingvideo.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Redis 캐시 색인
+ * 항목은 문자열 값(파일명|크기), 사용 순서는 정렬 집합(점수: 마지막 사용 시각)으로 관리한다.
+ */
+@RequiredArgsConstructor
+public class RedisCacheIndex implements CacheIndex {
+
+    private static final String PREFIX = "transcode-cache:";
+    private static final String ENTRY = PREFIX + "entry:";
+    private static final String LRU = PREFIX + "lru";
+    private static final String TOTAL = PREFIX + "total-size";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Override
+    public Optional<String> touch(String key) {
+        Object value = redisTemplate.opsForValue().get(ENTRY + key);
+        if (value == null) {
+            return Optional.empty();
+        }
+        redisTemplate.opsForZSet().add(LRU, key, System.currentTimeMillis());
+        return Optional.of(fileName(value.toString()));
+    }
+
+    @Override
+    public void put(String key, String fileName, long size) {
+        Object previous = redisTemplate.opsForValue().getAndSet(ENTRY + key, fileName + "|" + size);
+        if (previous != null) {
+            redisTemplate.opsForValue().decrement(TOTAL, size(previous.toString()));
+        }
+        redisTemplate.opsForValue().increment(TOTAL, size);
+        redisTemplate.opsForZSet().add(LRU, key, System.currentTimeMillis());
+    }
+
+    @Override
+    public Optional<String> removeEldest() {
+        Set<Object> eldest = redisTemplate.opsForZSet().range(LRU, 0, 0);
+        if (eldest == null || eldest.isEmpty()) {
+            return Optional.empty();
+        }
+        String key = eldest.iterator().next().toString();
+        redisTemplate.opsForZSet().remove(LRU, key);
+
+        Object value = redisTemplate.opsForValue().getAndDelete(ENTRY + key);
+        if (value == null) {
+            /* 색인만 남은 항목은 건너뛴다 */
+            return removeEldest();
+        }
+        redisTemplate.opsForValue().decrement(TOTAL, size(value.toString()));
+        return Optional.of(fileName(value.toString()));
+    }
+
+    @Override
+    public long totalSize() {
+        Object total = redisTemplate.opsForValue().get(TOTAL);
+        return total != null ? Long.parseLong(total.toString()) : 0;
+    }
+
+    private String fileName(String value) {
+        return value.substring(0, value.lastIndexOf('|'));
+    }
+
+    private long size(String value) {
+        return Long.parseLong(value.substring(value.lastIndexOf('|') + 1));
+    }
+}
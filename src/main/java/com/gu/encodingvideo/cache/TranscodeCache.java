@@ -0,0 +1,283 @@
+package com.gu.encodingvideo.cache;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 원본 내용(SHA-256) + 인코딩 옵션 기준 변환 결과 캐시
+ * 디스크 예산을 넘으면 가장 오래 사용하지 않은 결과부터 삭제한다.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class TranscodeCache {
+
+    final boolean enabled;
+
+    final Path cacheDir;
+
+    /* 캐시 디스크 예산(byte) */
+    final long maxSize;
+
+    final MemoryCacheIndex memoryIndex = new MemoryCacheIndex();
+
+    volatile CacheIndex index;
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+
+    public TranscodeCache(@Value("${app-config.cache.enabled:false}") boolean enabled,
+                          @Value("${app-config.cache.redis-index:false}") boolean redisIndex,
+                          @Value("${app-config.cache.max-size:53687091200}") long maxSize,
+                          @Value("${app-config.file-upload.base-path}") String basePath,
+                          @Value("${app-config.file-upload.encoding-path}") String encodingPath,
+                          RedisTemplate<String, Object> redisTemplate) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.cacheDir = Path.of(basePath, encodingPath, "cache");
+        this.index = redisIndex ? new RedisCacheIndex(redisTemplate) : memoryIndex;
+    }
+
+    /**
+     * 재시작 후 캐시 폴더로 메모리 색인을 다시 만든다. 수정 시각 순서를 사용 순서로 보고, 결과 파일이 없는 부산물 폴더는 지운다.
+     * Redis 색인은 재시작 후에도 남으므로 메모리 색인은 Redis 를 쓸 수 없을 때의 대비용이다.
+     */
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled || !Files.isDirectory(cacheDir)) {
+            return;
+        }
+
+        List<Path> outputs;
+        List<Path> orphans;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            List<Path> entries = files.collect(Collectors.toList());
+            outputs = entries.stream()
+                    .filter(path -> path.getFileName().toString().endsWith(".webm") && Files.isRegularFile(path))
+                    .sorted(Comparator.comparing(TranscodeCache::lastModified))
+                    .collect(Collectors.toList());
+            orphans = entries.stream()
+                    .filter(path -> path.getFileName().toString().endsWith(".artifacts"))
+                    .filter(dir -> !Files.exists(cacheDir.resolve(dir.getFileName().toString()
+                            .replaceFirst("\\.artifacts$", "") + ".webm")))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("Failed to read the cache folder: {}", e.getMessage());
+            return;
+        }
+
+        for (Path output : outputs) {
+            String fileName = output.getFileName().toString();
+            try {
+                long size = Files.size(output);
+                Path dir = artifactDir(fileName);
+                if (Files.isDirectory(dir)) {
+                    try (Stream<Path> artifacts = Files.list(dir)) {
+                        for (Path artifact : artifacts.collect(Collectors.toList())) {
+                            size += Files.size(artifact);
+                        }
+                    }
+                }
+                memoryIndex.put(fileName.replaceFirst("\\.webm$", ""), fileName, size);
+            } catch (IOException e) {
+                log.error("Failed to index cached output {}: {}", fileName, e.getMessage());
+            }
+        }
+        for (Path orphan : orphans) {
+            try {
+                FileSystemUtils.deleteRecursively(orphan);
+            } catch (IOException e) {
+                log.error(e.getMessage());
+            }
+        }
+
+        log.info("Indexed {} cached outputs ({} bytes)", outputs.size(), memoryIndex.totalSize());
+        evict();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 캐시 키 = 원본 해시 ({@link ContentHash}) + 인코딩 옵션 SHA-256
+     */
+    public String key(String contentHash, String encodeOptions) {
+        return contentHash + "-" + sha256(encodeOptions).substring(0, 16);
+    }
+
+    /**
+     * 캐시된 변환 결과
+     */
+    public Optional<Path> get(String key) {
+        Optional<Path> cached = withIndex(() -> index.touch(key))
+                .map(cacheDir::resolve)
+                .filter(Files::exists);
+
+        if (cached.isPresent()) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return cached;
+    }
+
+    /**
+     * 함께 캐시된 부산물 (포스터, 스프라이트, WebVTT). 없으면 빈 목록
+     */
+    public List<Path> getArtifacts(String key) {
+        Path dir = artifactDir(key + ".webm");
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("Failed to list cached artifacts {}: {}", key, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 변환 결과 등록
+     * 하드 링크로 등록하므로 작업 폴더의 결과와 별개로 유지된다.
+     *
+     * @param artifacts 결과와 함께 보관할 부산물. 같은 항목으로 관리되어 함께 삭제된다.
+     */
+    public void put(String key, Path output, List<Path> artifacts) {
+        Path cached = cacheDir.resolve(key + ".webm");
+        try {
+            Files.createDirectories(cacheDir);
+            Files.deleteIfExists(cached);
+            link(output, cached);
+
+            long size = Files.size(cached);
+            if (!artifacts.isEmpty()) {
+                Path dir = artifactDir(cached.getFileName().toString());
+                FileSystemUtils.deleteRecursively(dir);
+                Files.createDirectories(dir);
+                for (Path artifact : artifacts) {
+                    Path target = dir.resolve(artifact.getFileName());
+                    link(artifact, target);
+                    size += Files.size(target);
+                }
+            }
+
+            long entrySize = size;
+            withIndex(() -> {
+                index.put(key, cached.getFileName().toString(), entrySize);
+                return null;
+            });
+            evict();
+        } catch (IOException e) {
+            log.error("Failed to cache {}: {}", key, e.getMessage());
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getSize() {
+        return withIndex(() -> index.totalSize());
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 디스크 예산을 넘는 만큼 오래된 항목 삭제
+     */
+    private synchronized void evict() {
+        while (withIndex(() -> index.totalSize()) > maxSize) {
+            Optional<String> eldest = withIndex(() -> index.removeEldest());
+            if (eldest.isEmpty()) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(cacheDir.resolve(eldest.get()));
+                FileSystemUtils.deleteRecursively(artifactDir(eldest.get()));
+                log.info("Evicted cached output {}", eldest.get());
+            } catch (IOException e) {
+                log.error(e.getMessage());
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void link(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, target);
+        }
+    }
+
+    /* 캐시 파일(key.webm)의 부산물 폴더 (key.artifacts) */
+    private Path artifactDir(String cachedFileName) {
+        return cacheDir.resolve(cachedFileName.replaceFirst("\\.webm$", "") + ".artifacts");
+    }
+
+    /**
+     * Redis 색인을 쓸 수 없으면 메모리 색인으로 전환
+     */
+    private <T> T withIndex(Supplier<T> operation) {
+        try {
+            return operation.get();
+        } catch (DataAccessException e) {
+            if (index == memoryIndex) {
+                throw e;
+            }
+            log.warn("Redis cache index unavailable, falling back to memory: {}", e.getMessage());
+            index = memoryIndex;
+            return operation.get();
+        }
+    }
+
+    public static String sha256(String value) {
+        return HexFormat.of().formatHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.gu.encodingvideo.cache;
+
+import com.gu.encodingvideo.dto.ApiResponse;
+import com.gu.encodingvideo.dto.ApiResponseCode;
+import com.gu.encodingvideo.dto.CacheStatsResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@RequestMapping("/api/v1/cache")
+@Tag(name = "Cache API", description = "변환 결과 캐시 API")
+public class TranscodeCacheController {
+
+    private final TranscodeCache transcodeCache;
+
+    @GetMapping
+    @Operation(summary = "캐시 통계", description = "변환 캐시 적중/미적중 횟수 및 디스크 사용량")
+    public ResponseEntity<ApiResponse<CacheStatsResponse>> getStats() {
+        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, CacheStatsResponse.from(transcodeCache));
+    }
+}
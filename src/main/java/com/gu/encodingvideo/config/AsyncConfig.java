@@ -1,5 +1,8 @@
 package com.gu.encodingvideo.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -9,8 +12,25 @@ import java.util.concurrent.Executor;
 
 @EnableAsync
 @Configuration
+@Slf4j
 public class AsyncConfig implements AsyncConfigurer {
 
+    /* 동시에 실행할 FFmpeg 프로세스 수 (0 이하: 코어 수 기준 자동) */
+    @Value("${app-config.encoding.max-concurrent-jobs:0}")
+    private int maxConcurrentJobs;
+
+    /* FFmpeg 프로세스 1개가 사용하는 코어 수 */
+    @Value("${app-config.encoding.cores-per-job:4}")
+    private int coresPerJob;
+
+    /* 동시에 인코딩할 구간 수 (0 이하: 코어 수 기준 자동) */
+    @Value("${app-config.encoding.segment.parallelism:0}")
+    private int segmentParallelism;
+
+    /* 동시에 만들 미리보기 수 */
+    @Value("${app-config.encoding.preview.workers:1}")
+    private int previewWorkers;
+
     @Override
     public Executor getAsyncExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -21,4 +41,61 @@ public class AsyncConfig implements AsyncConfigurer {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 인코딩 작업 전용 워커 풀
+     */
+    @Bean
+    public ThreadPoolTaskExecutor encodingExecutor() {
+        int workers = maxConcurrentJobs > 0
+                ? maxConcurrentJobs
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, coresPerJob));
+        log.info("인코딩 워커 수: {}", workers);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("encoding-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 구간 병렬 인코딩 전용 워커 풀
+     * 워커는 맡은 FFmpeg 프로세스가 끝날 때까지 대기하고, 모든 작업이 공유하므로 전체 구간(샘플) 프로세스 수가 워커 수로 제한된다.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor segmentExecutor() {
+        int workers = segmentParallelism > 0
+                ? segmentParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, coresPerJob));
+        log.info("구간 인코딩 워커 수: {}", workers);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("segment-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 미리보기 전용 워커 풀
+     * 인코딩 워커가 모두 사용 중이어도 미리보기는 바로 시작한다.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor previewExecutor() {
+        int workers = Math.max(1, previewWorkers);
+        log.info("미리보기 워커 수: {}", workers);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("preview-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,42 @@
+package com.gu.encodingvideo.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ABR 인코딩 해상도 단계 (app-config.encoding.ladder)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app-config.encoding")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EncodingLadderProperties {
+
+    List<Rendition> ladder = new ArrayList<>();
+
+    /* 해상도 간 DASH 세그먼트 정렬을 위한 고정 키프레임 간격 (프레임) */
+    int keyframeInterval = 120;
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Rendition {
+
+        /* 출력 파일명 (예: 720p → 720p.webm) */
+        String name;
+
+        /* 세로 해상도. 가로는 원본 비율 유지 */
+        int height;
+
+        /* 목표 비트레이트 (예: 1500k) */
+        String bitrate;
+    }
+}
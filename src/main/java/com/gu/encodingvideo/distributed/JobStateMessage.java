@@ -0,0 +1,81 @@
+package com.gu.encodingvideo.distributed;
+
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingPlan;
+import com.gu.encodingvideo.job.JobStatus;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.jackson.Jacksonized;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 작업 상태 변경 (encoding:job-state)
+ * 작업을 등록한 노드가 받아 자신의 작업 목록에 반영한다. 파일은 작업 폴더 기준 이름으로 전달한다.
+ */
+@Getter
+@Builder
+@Jacksonized
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JobStateMessage {
+
+    String jobId;
+    JobStatus status;
+    EncodingPlan plan;
+    String outputFilename;
+    List<String> renditionFilenames;
+    List<String> thumbnailFilenames;
+    Integer crf;
+    Double predictedVmaf;
+
+    public static JobStateMessage of(EncodingJob job) {
+        return JobStateMessage.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .plan(job.getPlan())
+                .outputFilename(job.getOutputFile() != null ? job.getOutputFile().getFileName().toString() : null)
+                .renditionFilenames(job.getRenditionFiles().stream()
+                        .map(path -> path.getFileName().toString())
+                        .collect(Collectors.toList()))
+                .thumbnailFilenames(job.getThumbnailFiles().stream()
+                        .map(path -> path.getFileName().toString())
+                        .collect(Collectors.toList()))
+                .crf(job.getCrf())
+                .predictedVmaf(job.getPredictedVmaf())
+                .build();
+    }
+
+    /**
+     * 결과를 먼저 기록한 뒤 상태를 바꾼다 (완료 대기 중인 요청이 결과를 읽을 수 있도록)
+     */
+    public void applyTo(EncodingJob job) {
+        if (plan != null) {
+            job.setPlan(plan);
+        }
+        if (outputFilename != null) {
+            job.setOutputFile(job.getWorkDir().resolve(outputFilename));
+        }
+        if (renditionFilenames != null && !renditionFilenames.isEmpty()) {
+            List<Path> files = renditionFilenames.stream()
+                    .map(job.getWorkDir()::resolve)
+                    .collect(Collectors.toList());
+            job.setRenditionFiles(files);
+        }
+        if (thumbnailFilenames != null && !thumbnailFilenames.isEmpty()) {
+            job.setThumbnailFiles(thumbnailFilenames.stream()
+                    .map(job.getWorkDir()::resolve)
+                    .collect(Collectors.toList()));
+        }
+        if (crf != null) {
+            job.setCrf(crf);
+            job.setPredictedVmaf(predictedVmaf);
+        }
+        if (status != null && status != job.getStatus()) {
+            job.changeStatus(status);
+        }
+    }
+}
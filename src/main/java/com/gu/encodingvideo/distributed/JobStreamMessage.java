@@ -0,0 +1,74 @@
+package com.gu.encodingvideo.distributed;
+
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.EncodingPreset;
+import com.gu.encodingvideo.job.EncodingProfile;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 작업 스트림(encoding:jobs) 항목
+ * 원본은 공유 저장소의 작업 폴더에 있으므로 작업 정보만 전달한다.
+ */
+@Getter
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JobStreamMessage {
+
+    String jobId;
+    String filename;
+    EncodingOptions options;
+    String cacheKey;
+
+    public static JobStreamMessage of(EncodingJob job) {
+        return JobStreamMessage.builder()
+                .jobId(job.getId())
+                .filename(job.getOriginalFilename())
+                .options(job.getOptions())
+                .cacheKey(job.getCacheKey())
+                .build();
+    }
+
+    public Map<String, String> toMap() {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("jobId", jobId);
+        fields.put("filename", filename);
+        fields.put("profile", options.getProfile().name());
+        fields.put("preset", options.getPreset().name());
+        if (options.getTargetVmaf() != null) {
+            fields.put("targetVmaf", String.valueOf(options.getTargetVmaf()));
+        }
+        if (options.getClientId() != null) {
+            fields.put("clientId", options.getClientId());
+        }
+        if (options.isThumbnails()) {
+            fields.put("thumbnails", "true");
+        }
+        if (cacheKey != null) {
+            fields.put("cacheKey", cacheKey);
+        }
+        return fields;
+    }
+
+    public static JobStreamMessage from(Map<String, String> fields) {
+        String targetVmaf = fields.get("targetVmaf");
+        return JobStreamMessage.builder()
+                .jobId(fields.get("jobId"))
+                .filename(fields.get("filename"))
+                .options(EncodingOptions.builder()
+                        .profile(EncodingProfile.valueOf(fields.get("profile")))
+                        .preset(EncodingPreset.valueOf(fields.get("preset")))
+                        .targetVmaf(targetVmaf != null ? Double.valueOf(targetVmaf) : null)
+                        .thumbnails(Boolean.parseBoolean(fields.get("thumbnails")))
+                        .clientId(fields.get("clientId"))
+                        .build())
+                .cacheKey(fields.get("cacheKey"))
+                .build();
+    }
+}
@@ -0,0 +1,337 @@
+package com.gu.encodingvideo.distributed;
+
+import com.gu.encodingvideo.EncodingService;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingJobRegistry;
+import com.gu.encodingvideo.job.JobStatus;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.api.async.RedisStreamAsyncCommands;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 분산 인코딩 워커
+ * 소비자 그룹으로 작업 스트림을 읽어 워커 풀 크기만큼만 가져온다.
+ * 실행 중인 항목은 주기적으로 다시 claim 하여 유휴 시간을 초기화하고,
+ * 유휴 시간이 claim-idle-seconds 를 넘은 항목(멈춘 워커의 작업)은 XAUTOCLAIM 으로 가져온다.
+ */
+@Component
+@ConditionalOnExpression("${app-config.distributed.enabled:false} and ${app-config.distributed.worker:true}")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class RedisEncodingWorker implements SmartLifecycle {
+
+    private static final Duration READ_BLOCK = Duration.ofSeconds(2);
+
+    @Value("${app-config.file-upload.base-path}")
+    private String basePath;
+
+    @Value("${app-config.file-upload.encoding-path}")
+    private String encodingPath;
+
+    @Value("${app-config.distributed.claim-idle-seconds:600}")
+    private long claimIdleSeconds;
+
+    /* 이 횟수를 넘게 전달된 작업은 실패로 처리 */
+    @Value("${app-config.distributed.max-deliveries:3}")
+    private long maxDeliveries;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisJobQueue jobQueue;
+
+    private final RedisJobEvents jobEvents;
+
+    private final EncodingService encodingService;
+
+    private final EncodingJobRegistry jobRegistry;
+
+    private final ThreadPoolTaskExecutor encodingExecutor;
+
+    private final String consumerName;
+
+    /* 남은 처리 용량 */
+    private final Semaphore capacity;
+
+    /* 실행 중인 스트림 항목 (작업 ID → 항목 ID) */
+    private final Map<String, RecordId> running = new ConcurrentHashMap<>();
+
+    private volatile boolean active;
+
+    private Thread poller;
+
+    private ScheduledExecutorService scheduler;
+
+    public RedisEncodingWorker(StringRedisTemplate redisTemplate, RedisJobQueue jobQueue, RedisJobEvents jobEvents,
+                               EncodingService encodingService, EncodingJobRegistry jobRegistry,
+                               ThreadPoolTaskExecutor encodingExecutor,
+                               @Value("${app-config.distributed.consumer-name:}") String consumerName,
+                               @Value("${app-config.distributed.worker-capacity:0}") int workerCapacity) {
+        this.redisTemplate = redisTemplate;
+        this.jobQueue = jobQueue;
+        this.jobEvents = jobEvents;
+        this.encodingService = encodingService;
+        this.jobRegistry = jobRegistry;
+        this.encodingExecutor = encodingExecutor;
+        this.consumerName = consumerName.isBlank() ? defaultConsumerName() : consumerName;
+        this.capacity = new Semaphore(workerCapacity > 0 ? workerCapacity : encodingExecutor.getMaxPoolSize());
+    }
+
+    @Override
+    public void start() {
+        active = true;
+        poller = new Thread(this::poll, "encoding-stream-" + consumerName);
+        poller.setDaemon(true);
+        poller.start();
+
+        long interval = Math.max(1, claimIdleSeconds / 3);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.SECONDS);
+        log.info("Encoding worker {} started (capacity: {})", consumerName, capacity.availablePermits());
+    }
+
+    @Override
+    public void stop() {
+        active = false;
+        if (poller != null) {
+            poller.interrupt();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return active;
+    }
+
+    /**
+     * 빈 자리만큼 새 항목을 읽는다.
+     */
+    private void poll() {
+        while (active) {
+            int permits = 0;
+            try {
+                capacity.acquire();
+                permits = 1 + capacity.drainPermits();
+                jobQueue.ensureGroup();
+
+                List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                        Consumer.from(RedisJobQueue.GROUP, consumerName),
+                        StreamReadOptions.empty().count(permits).block(READ_BLOCK),
+                        StreamOffset.create(RedisJobQueue.STREAM, ReadOffset.lastConsumed()));
+
+                int dispatched = 0;
+                if (records != null) {
+                    for (MapRecord<String, Object, Object> record : records) {
+                        dispatch(record.getId(), stringFields(record.getValue()));
+                        dispatched++;
+                    }
+                }
+                capacity.release(permits - dispatched);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                capacity.release(permits);
+                log.warn("Failed to read {}: {}", RedisJobQueue.STREAM, e.getMessage());
+                sleep();
+            }
+        }
+    }
+
+    /**
+     * 실행 중인 항목의 유휴 시간 초기화 후 멈춘 항목 회수
+     */
+    private void maintain() {
+        try {
+            heartbeat();
+            reclaim();
+        } catch (RuntimeException e) {
+            log.warn("Failed to maintain pending jobs: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        if (running.isEmpty()) {
+            return;
+        }
+        RecordId[] ids = running.values().toArray(new RecordId[0]);
+        redisTemplate.execute((RedisCallback<List<RecordId>>) connection -> connection.streamCommands().xClaimJustId(
+                key(), RedisJobQueue.GROUP, consumerName,
+                RedisStreamCommands.XClaimOptions.minIdle(Duration.ZERO).ids(ids)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void reclaim() {
+        int permits = capacity.drainPermits();
+        int dispatched = 0;
+        try {
+            if (permits == 0) {
+                return;
+            }
+            ClaimedMessages<byte[], byte[]> claimed = redisTemplate.execute((RedisCallback<ClaimedMessages<byte[], byte[]>>) connection -> {
+                RedisStreamAsyncCommands<byte[], byte[]> commands = (RedisStreamAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+                try {
+                    return commands.xautoclaim(key(), XAutoClaimArgs.Builder
+                            .xautoclaim(io.lettuce.core.Consumer.from(RedisJobQueue.GROUP.getBytes(StandardCharsets.UTF_8),
+                                    consumerName.getBytes(StandardCharsets.UTF_8)), Duration.ofSeconds(claimIdleSeconds), "0-0")
+                            .count(permits)).get(claimIdleSeconds, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            if (claimed == null) {
+                return;
+            }
+
+            for (StreamMessage<byte[], byte[]> message : claimed.getMessages()) {
+                RecordId id = RecordId.of(message.getId());
+                Map<String, String> fields = new HashMap<>();
+                message.getBody().forEach((field, value) -> fields.put(
+                        new String(field, StandardCharsets.UTF_8), new String(value, StandardCharsets.UTF_8)));
+
+                if (deliveryCount(id) > maxDeliveries) {
+                    log.error("Giving up {} after {} deliveries", fields.get("jobId"), maxDeliveries);
+                    jobEvents.publishState(JobStateMessage.builder()
+                            .jobId(fields.get("jobId"))
+                            .status(JobStatus.FAILED)
+                            .build());
+                    acknowledge(id);
+                    continue;
+                }
+                log.info("Reclaimed stalled job {} ({})", fields.get("jobId"), id);
+                dispatch(id, fields);
+                dispatched++;
+            }
+        } finally {
+            capacity.release(permits - dispatched);
+        }
+    }
+
+    private long deliveryCount(RecordId id) {
+        PendingMessages pending = redisTemplate.opsForStream().pending(RedisJobQueue.STREAM, RedisJobQueue.GROUP,
+                Range.closed(id.getValue(), id.getValue()), 1L);
+        return pending.isEmpty() ? 0 : pending.get(0).getTotalDeliveryCount();
+    }
+
+    /**
+     * 용량 1개를 사용하여 워커 풀에서 실행. 끝나면 ACK 하고 용량을 반납한다.
+     */
+    private void dispatch(RecordId id, Map<String, String> fields) {
+        JobStreamMessage message = JobStreamMessage.from(fields);
+        running.put(message.getJobId(), id);
+        encodingExecutor.execute(() -> {
+            try {
+                process(message);
+            } catch (RuntimeException e) {
+                log.error("[{}] Distributed job failed: {}", message.getJobId(), e.getMessage(), e);
+            } finally {
+                running.remove(message.getJobId());
+                acknowledge(id);
+                capacity.release();
+            }
+        });
+    }
+
+    private void process(JobStreamMessage message) {
+        if (jobEvents.isCancelled(message.getJobId())) {
+            log.info("[{}] Skipping cancelled job", message.getJobId());
+            return;
+        }
+
+        /* 같은 노드에서 등록된 작업이면 그 작업을 그대로 사용 */
+        EncodingJob registered = jobRegistry.find(message.getJobId()).orElse(null);
+        EncodingJob job = registered != null ? registered
+                : new EncodingJob(message.getJobId(), message.getFilename(), message.getOptions(), Path.of(basePath, encodingPath));
+        job.setCacheKey(message.getCacheKey());
+        if (registered == null) {
+            jobRegistry.register(job);
+        }
+
+        try {
+            jobEvents.publishState(JobStateMessage.builder()
+                    .jobId(job.getId())
+                    .status(JobStatus.RUNNING)
+                    .build());
+            encodingService.runClaimed(job);
+            jobEvents.publishState(JobStateMessage.of(job));
+        } finally {
+            if (registered == null) {
+                jobRegistry.remove(job.getId());
+            }
+        }
+    }
+
+    private void acknowledge(RecordId id) {
+        try {
+            redisTemplate.opsForStream().acknowledge(RedisJobQueue.STREAM, RedisJobQueue.GROUP, id);
+        } catch (RuntimeException e) {
+            log.warn("Failed to acknowledge {}: {}", id, e.getMessage());
+        }
+    }
+
+    private static byte[] key() {
+        return RedisJobQueue.STREAM.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> stringFields(Map<Object, Object> value) {
+        Map<String, String> fields = new HashMap<>();
+        value.forEach((field, fieldValue) -> fields.put(String.valueOf(field), String.valueOf(fieldValue)));
+        return fields;
+    }
+
+    private static String defaultConsumerName() {
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + ManagementFactory.getRuntimeMXBean().getPid();
+        } catch (UnknownHostException e) {
+            return "worker-" + ManagementFactory.getRuntimeMXBean().getPid();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(READ_BLOCK.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.gu.encodingvideo.distributed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingJobRegistry;
+import com.gu.encodingvideo.job.JobStatus;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 노드 간 작업 이벤트 (Redis pub/sub)
+ * 진행 정보는 모든 노드가 받아 각자의 STOMP 브로커(/sub)로 보내므로
+ * 클라이언트가 어느 노드에 WebSocket 으로 연결되어 있어도 받을 수 있다.
+ */
+@Component
+@ConditionalOnProperty(name = "app-config.distributed.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class RedisJobEvents implements MessageListener {
+
+    private static final String STOMP = "encoding:stomp";
+    private static final String STATE = "encoding:job-state";
+    private static final String CANCEL = "encoding:cancel";
+
+    /* 취소 표시. 아직 스트림에서 가져가지 않은 작업도 건너뛸 수 있도록 남겨 둔다 */
+    private static final String CANCELLED = "encoding:cancelled:";
+    private static final Duration CANCELLED_TTL = Duration.ofDays(1);
+
+    private static final Pattern PROGRESS = Pattern.compile("^/sub/message/([^/]+)/progress$");
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final EncodingJobRegistry jobRegistry;
+
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, List.of(new ChannelTopic(STOMP), new ChannelTopic(STATE),
+                new ChannelTopic(CANCEL)));
+    }
+
+    /**
+     * STOMP 메시지를 모든 노드로 전달
+     */
+    public void publishStomp(String destination, Object payload) {
+        publish(STOMP, objectMapper.createObjectNode()
+                .put("destination", destination)
+                .set("payload", objectMapper.valueToTree(payload)));
+    }
+
+    public void publishState(JobStateMessage state) {
+        publish(STATE, state);
+    }
+
+    public void publishCancel(String jobId) {
+        redisTemplate.opsForValue().set(CANCELLED + jobId, "1", CANCELLED_TTL);
+        redisTemplate.convertAndSend(CANCEL, jobId);
+    }
+
+    public boolean isCancelled(String jobId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(CANCELLED + jobId));
+    }
+
+    private void publish(String channel, Object message) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize {}: {}", channel, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            switch (channel) {
+                case STOMP:
+                    forward(objectMapper.readTree(body));
+                    break;
+                case STATE:
+                    JobStateMessage state = objectMapper.readValue(body, JobStateMessage.class);
+                    jobRegistry.find(state.getJobId()).ifPresent(state::applyTo);
+                    break;
+                case CANCEL:
+                    jobRegistry.find(body).ifPresent(this::cancelLocal);
+                    break;
+                default:
+                    break;
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Invalid {} message: {}", channel, e.getMessage());
+        }
+    }
+
+    private void forward(JsonNode message) throws JsonProcessingException {
+        String destination = message.path("destination").asText();
+        JsonNode payload = message.path("payload");
+
+        /* 이 노드에 등록된 작업이면 최근 진행 정보도 반영 */
+        Matcher matcher = PROGRESS.matcher(destination);
+        if (matcher.matches()) {
+            FFmpegProgress progress = objectMapper.treeToValue(payload, FFmpegProgress.class);
+            jobRegistry.find(matcher.group(1)).ifPresent(job -> job.setProgress(progress));
+        }
+
+        /* 문자열은 원래대로 text/plain 으로 보낸다 */
+        messagingTemplate.convertAndSend(destination, payload.isTextual() ? payload.asText() : payload);
+    }
+
+    /**
+     * 이 노드에서 실행 중인 프로세스 종료
+     */
+    private void cancelLocal(EncodingJob job) {
+        job.changeStatus(JobStatus.CANCELLED);
+        job.getProcesses().forEach(FFmpegRunner::destroyProcessTree);
+    }
+}
@@ -0,0 +1,62 @@
+package com.gu.encodingvideo.distributed;
+
+import com.gu.encodingvideo.job.EncodingJob;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 작업 스트림 (Redis Streams)
+ * API 노드가 작업을 추가하고 워커 노드가 소비자 그룹으로 나누어 가져간다.
+ */
+@Component
+@ConditionalOnProperty(name = "app-config.distributed.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class RedisJobQueue {
+
+    public static final String STREAM = "encoding:jobs";
+    public static final String GROUP = "encoders";
+
+    private final StringRedisTemplate redisTemplate;
+
+    private volatile boolean groupCreated;
+
+    public RecordId add(EncodingJob job) {
+        ensureGroup();
+        RecordId id = redisTemplate.opsForStream().add(StreamRecords.string(JobStreamMessage.of(job).toMap())
+                .withStreamKey(STREAM));
+        log.info("[{}] Queued to {}: {}", job.getId(), STREAM, id);
+        return id;
+    }
+
+    /**
+     * 소비자 그룹 생성 (스트림이 없으면 함께 생성). 이미 있으면 무시한다.
+     */
+    public void ensureGroup() {
+        if (groupCreated) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(STREAM.getBytes(StandardCharsets.UTF_8), GROUP, ReadOffset.from("0"), true));
+        } catch (DataAccessException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupCreated = true;
+    }
+}
@@ -0,0 +1,183 @@
+package com.gu.encodingvideo.download;
+
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.exception.ErrorCode;
+import com.gu.encodingvideo.LiveDashEncoder;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingProfile;
+import com.gu.encodingvideo.job.JobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 인코딩 결과 다운로드
+ * Range(206), 강한 ETag(If-None-Match, If-Range) 를 지원한다. 커넥터가 sendfile 을 지원하면 파일 전송을 Tomcat 에 넘기고,
+ * 아니면 큰 버퍼로 나누어 복사해 파일 전체를 힙에 올리지 않는다.
+ * sendfile 본문은 서블릿이 반환된 뒤에 전송되어 끝나는 시점을 알 수 없으므로 여기서 동시 다운로드 수를 세지 않는다.
+ * 동시 다운로드는 Tomcat 연결 수(server.tomcat.max-connections)와 요청 스레드 수(server.tomcat.threads.max)로 제한한다.
+ */
+@Service
+@Slf4j
+public class OutputDownloadService {
+
+    /* Tomcat sendfile 요청 속성 (NIO, NIO2, APR 커넥터) */
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /* sendfile 을 쓰지 못할 때 복사 버퍼 크기 */
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * 완료된 작업의 결과 파일. filename 이 null 이면 대표 결과 (ABR, LIVE 는 manifest)
+     * LIVE 작업은 인코딩 중에도 manifest 와 완성된 세그먼트를 내려준다.
+     */
+    public Path resolve(EncodingJob job, String filename) {
+        /* 미리보기는 전체 인코딩 중에도 내려준다 */
+        Path preview = job.getPreviewFile();
+        if (preview != null && preview.getFileName().toString().equals(filename) && job.getStatus() != JobStatus.CANCELLED) {
+            return preview;
+        }
+
+        if (job.getOptions().getProfile() == EncodingProfile.LIVE && job.getStatus() == JobStatus.RUNNING) {
+            String name = filename == null ? LiveDashEncoder.MANIFEST : filename;
+            Path file = job.getWorkDir().resolve(name);
+            if (!LiveDashEncoder.isPublished(job, name) || !Files.isRegularFile(file)) {
+                throw new BadRequestException(ErrorCode.FILE_NOT_FOUND);
+            }
+            return file;
+        }
+
+        if (job.getStatus() != JobStatus.COMPLETED || job.getOutputFile() == null) {
+            throw new BadRequestException(ErrorCode.TASK_IS_NOT_COMPlETE);
+        }
+
+        Path file = filename == null ? job.getOutputFile()
+                : Stream.of(Stream.of(job.getOutputFile()), job.getRenditionFiles().stream(), job.getThumbnailFiles().stream())
+                .flatMap(paths -> paths)
+                .filter(path -> path.getFileName().toString().equals(filename))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException(ErrorCode.FILE_NOT_FOUND));
+
+        if (!Files.isRegularFile(file)) {
+            throw new BadRequestException(ErrorCode.FILE_NOT_FOUND);
+        }
+        return file;
+    }
+
+    public void send(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        /* 결과 파일은 완료 후 바뀌지 않으므로 크기와 수정 시각으로 강한 ETag 를 만든다 */
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        ResourceRegion region = new ResourceRegion(new FileSystemResource(file), 0, size);
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                /* 여러 구간 요청은 전체 파일로 응답한다 (RFC 7233 허용) */
+                if (ranges.size() == 1) {
+                    region = ranges.get(0).toResourceRegion(region.getResource());
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        /* 라이브 manifest 는 인코딩 중 계속 갱신되므로 매번 재검증 */
+        if (file.getFileName().toString().endsWith(".mpd")) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        response.setContentType(contentType(file));
+        response.setContentLengthLong(region.getCount());
+        if (region.getCount() < size) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + region.getPosition() + "-"
+                    + (region.getPosition() + region.getCount() - 1) + "/" + size);
+        }
+
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            /* 응답 본문은 서블릿이 반환된 뒤 커넥터가 커널 sendfile 로 보낸다 */
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, region.getPosition());
+            request.setAttribute(SENDFILE_END, region.getPosition() + region.getCount());
+        } else {
+            copy(file, region.getPosition(), region.getCount(), response);
+        }
+    }
+
+    private void copy(Path file, long position, long count, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             InputStream in = Channels.newInputStream(channel.position(position))) {
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = count;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * If-Range 가 없거나 현재 파일과 일치하면 Range 를 적용한다.
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 <= date / 1000;
+    }
+
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".mpd")) {
+            return "application/dash+xml";
+        } else if (name.endsWith(".jpg")) {
+            return "image/jpeg";
+        } else if (name.endsWith(".vtt")) {
+            return "text/vtt";
+        }
+        return "video/webm";
+    }
+}
@@ -5,6 +5,7 @@ import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDateTime;
@@ -32,6 +33,19 @@ public class ApiResponse<T> {
             );
     }
 
+    public static <T> ResponseEntity<ApiResponse<T>> toResponseEntity(ApiResponseCode responseCode,
+        T result, HttpHeaders headers) {
+        return ResponseEntity
+            .status(responseCode.getHttpStatus())
+            .headers(headers)
+            .body(ApiResponse.<T>builder()
+                .status(responseCode.getHttpStatus().value())
+                .result(result)
+                .message(responseCode.getDetail())
+                .build()
+            );
+    }
+
     public static <T> ResponseEntity<ApiResponse<T>> toResponseEntity(
         ApiResponseCode responseCode) {
         return toResponseEntity(responseCode, (T) "ok");
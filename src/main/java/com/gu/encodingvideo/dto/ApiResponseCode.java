@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.springframework.http.HttpStatus;
 
+import static org.springframework.http.HttpStatus.ACCEPTED;
 import static org.springframework.http.HttpStatus.OK;
 
 @Getter
@@ -12,6 +13,7 @@ public enum ApiResponseCode {
 
     RESPONSE_OK(OK, "요청이 완료됐습니다."),
     UPLOAD_OK(OK, "업로드가 완료되었습니다."),
+    ENCODING_ACCEPTED(ACCEPTED, "인코딩 요청이 접수되었습니다."),
     //********************************
     ;
 
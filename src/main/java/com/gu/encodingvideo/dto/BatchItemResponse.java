@@ -0,0 +1,43 @@
+package com.gu.encodingvideo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gu.encodingvideo.exception.ErrorCode;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(title = "일괄 등록 결과", description = "파일별 작업 등록 결과")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BatchItemResponse {
+
+    String filename;
+
+    @Schema(description = "등록된 작업. 거절된 파일은 없음")
+    JobResponse job;
+
+    @Schema(description = "거절 사유")
+    ErrorCode error;
+
+    @Schema(description = "거절 사유 메시지")
+    String message;
+
+    public static BatchItemResponse accepted(String filename, JobResponse job) {
+        return BatchItemResponse.builder()
+            .filename(filename)
+            .job(job)
+            .build();
+    }
+
+    public static BatchItemResponse rejected(String filename, ErrorCode error) {
+        return BatchItemResponse.builder()
+            .filename(filename)
+            .error(error)
+            .message(error.getDetail())
+            .build();
+    }
+}
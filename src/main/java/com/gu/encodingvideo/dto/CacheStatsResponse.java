@@ -0,0 +1,31 @@
+package com.gu.encodingvideo.dto;
+
+import com.gu.encodingvideo.cache.TranscodeCache;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Builder
+@Schema(title = "변환 캐시 정보", description = "변환 캐시 적중 통계 및 사용량")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CacheStatsResponse {
+
+    boolean enabled;
+    long hits;
+    long misses;
+    long size;
+    long maxSize;
+
+    public static CacheStatsResponse from(TranscodeCache cache) {
+        return CacheStatsResponse.builder()
+            .enabled(cache.isEnabled())
+            .hits(cache.getHits())
+            .misses(cache.getMisses())
+            .size(cache.getSize())
+            .maxSize(cache.getMaxSize())
+            .build();
+    }
+}
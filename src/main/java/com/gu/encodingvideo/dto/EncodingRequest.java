@@ -0,0 +1,61 @@
+package com.gu.encodingvideo.dto;
+
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.EncodingPreset;
+import com.gu.encodingvideo.job.EncodingProfile;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import javax.servlet.http.HttpServletRequest;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Schema(title = "인코딩 옵션", description = "인코딩 요청 옵션")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EncodingRequest {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    @Schema(description = "인코딩 프로필 (SINGLE: 1080p WebM, ABR: 해상도별 WebM + DASH manifest, LIVE: 인코딩 중 재생 가능한 DASH)", defaultValue = "SINGLE")
+    EncodingProfile profile = EncodingProfile.SINGLE;
+
+    @Schema(description = "속도/품질 프리셋 (REALTIME, BALANCED, ARCHIVE)", defaultValue = "BALANCED")
+    EncodingPreset preset = EncodingPreset.BALANCED;
+
+    @Schema(description = "목표 VMAF 점수 (0~100). 지정하면 샘플 구간으로 이를 만족하는 가장 높은 CRF 를 골라 인코딩한다 (SINGLE)")
+    Double targetVmaf;
+
+    @Schema(description = "포스터, 탐색 미리보기 스프라이트, WebVTT 생성 (SINGLE)", defaultValue = "false")
+    boolean thumbnails;
+
+    @Schema(description = "전체 인코딩 전에 저해상도 미리보기(preview.webm)를 먼저 만들고 /sub/message/{id}/preview 로 알린다 (SINGLE, ABR)", defaultValue = "false")
+    boolean preview;
+
+    public EncodingOptions toOptions() {
+        return toOptions((String) null);
+    }
+
+    /**
+     * 클라이언트는 X-Client-Id 헤더, 없으면 요청 IP 로 구분한다.
+     */
+    public EncodingOptions toOptions(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return toOptions(clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr());
+    }
+
+    private EncodingOptions toOptions(String clientId) {
+        return EncodingOptions.builder()
+            .profile(profile)
+            .preset(preset)
+            .targetVmaf(targetVmaf)
+            .thumbnails(thumbnails)
+            .preview(preview)
+            .clientId(clientId)
+            .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.gu.encodingvideo.dto;
+
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingPlan;
+import com.gu.encodingvideo.job.JobStatus;
+import com.gu.encodingvideo.job.JobTimings;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+@Builder
+@Schema(title = "인코딩 작업 정보", description = "인코딩 작업 정보")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JobResponse {
+
+    String jobId;
+    String filename;
+    JobStatus status;
+    EncodingPlan plan;
+
+    @Schema(description = "목표 품질 모드에서 고른 CRF")
+    Integer crf;
+
+    @Schema(description = "선택한 CRF 의 예상 VMAF 점수")
+    Double predictedVmaf;
+    String outputFilename;
+
+    @Schema(description = "ABR 해상도별 출력 파일명")
+    List<String> renditionFilenames;
+
+    @Schema(description = "포스터, 미리보기 스프라이트, WebVTT 파일명")
+    List<String> thumbnailFilenames;
+
+    @Schema(description = "저해상도 미리보기 파일명. 전체 인코딩 중에도 내려받을 수 있다")
+    String previewFilename;
+
+    FFmpegProgress progress;
+
+    @Schema(description = "단계별 소요 시간 (ms)")
+    JobTimings timings;
+    LocalDateTime createdAt;
+
+    public static JobResponse from(EncodingJob job) {
+        return JobResponse.builder()
+            .jobId(job.getId())
+            .filename(job.getOriginalFilename())
+            .status(job.getStatus())
+            .plan(job.getPlan())
+            .crf(job.getCrf())
+            .predictedVmaf(job.getPredictedVmaf())
+            .outputFilename(job.getOutputFile() != null ? job.getOutputFile().getFileName().toString() : null)
+            .renditionFilenames(job.getRenditionFiles().stream()
+                .map(path -> path.getFileName().toString())
+                .collect(Collectors.toList()))
+            .thumbnailFilenames(job.getThumbnailFiles().stream()
+                .map(path -> path.getFileName().toString())
+                .collect(Collectors.toList()))
+            .previewFilename(job.getPreviewFile() != null ? job.getPreviewFile().getFileName().toString() : null)
+            .progress(job.getProgress())
+            .timings(job.getTimings())
+            .createdAt(job.getCreatedAt())
+            .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.gu.encodingvideo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Builder
+@Schema(title = "라이브 세그먼트", description = "인코딩 중 완성된 DASH 세그먼트")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class LiveSegmentEvent {
+
+    @Schema(description = "세그먼트 파일명 (/api/v1/jobs/{id}/output/{name})")
+    String name;
+
+    @Schema(description = "세그먼트 순번 (0부터)")
+    int index;
+
+    @Schema(description = "인코딩 완료 구간(초)")
+    double outTime;
+}
@@ -0,0 +1,20 @@
+package com.gu.encodingvideo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Builder
+@Schema(title = "미리보기", description = "전체 인코딩 전에 완성된 저해상도 미리보기")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PreviewEvent {
+
+    @Schema(description = "미리보기 파일명 (/api/v1/jobs/{id}/output/{name})")
+    String name;
+
+    @Schema(description = "작업 등록부터 미리보기 완료까지 (ms)")
+    long previewMillis;
+}
@@ -0,0 +1,23 @@
+package com.gu.encodingvideo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@Builder
+@Schema(title = "해상도별 진행 정보", description = "ABR 해상도별 진행 정보")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RenditionProgress {
+
+    String name;
+    int height;
+
+    @Schema(description = "인코딩 완료 구간(초). 한 번의 디코딩으로 모든 해상도가 함께 진행된다")
+    double outTime;
+
+    @Schema(description = "현재까지 기록된 파일 크기(byte)")
+    long size;
+}
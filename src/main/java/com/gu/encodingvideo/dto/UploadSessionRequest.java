@@ -0,0 +1,23 @@
+package com.gu.encodingvideo.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Getter
+@NoArgsConstructor
+@Schema(title = "업로드 세션 생성 요청", description = "업로드 세션 생성 요청")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadSessionRequest {
+
+    @Schema(description = "원본 파일명")
+    String filename;
+
+    @Schema(description = "전체 파일 크기(byte)")
+    long size;
+
+    @Schema(description = "조각 크기(byte)")
+    long chunkSize;
+}
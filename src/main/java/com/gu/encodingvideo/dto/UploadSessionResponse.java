@@ -0,0 +1,35 @@
+package com.gu.encodingvideo.dto;
+
+import com.gu.encodingvideo.upload.UploadSession;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Getter
+@Builder
+@Schema(title = "업로드 세션 정보", description = "업로드 세션 정보")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UploadSessionResponse {
+
+    String uploadId;
+    String filename;
+    long size;
+    long chunkSize;
+    int totalChunks;
+    List<Integer> missingChunks;
+
+    public static UploadSessionResponse from(UploadSession session) {
+        return UploadSessionResponse.builder()
+            .uploadId(session.getId())
+            .filename(session.getOriginalFilename())
+            .size(session.getSize())
+            .chunkSize(session.getChunkSize())
+            .totalChunks(session.getTotalChunks())
+            .missingChunks(session.getMissingChunks())
+            .build();
+    }
+}
@@ -16,17 +16,27 @@ public enum ErrorCode {
     TYPE_MISMATCH(BAD_REQUEST, "타입이 올바르지 않습니다"),
     TASK_IS_NOT_EXIST(BAD_REQUEST, "존재하지 않는 태스크 입니다"),
     TASK_IS_NOT_COMPlETE(BAD_REQUEST, "완료되지 않은 태스크 입니다"),
+    TASK_IS_ALREADY_FINISHED(CONFLICT, "이미 종료된 태스크 입니다"),
     ROOM_IS_NOT_EXIST(BAD_REQUEST, "존재하지 않는 방입니다"),
     FOLDER_IS_NOT_EXIST(BAD_REQUEST, "존재하지 않는 폴더 입니다"),
+    INVALID_OPTION(BAD_REQUEST, "인코딩 옵션이 올바르지 않습니다"),
 
     /* FILE : 파일 */
     EXCEED_MAX_UPLOAD_SIZE(PAYLOAD_TOO_LARGE, "서버에서 허용한 파일 크기를 초과했습니다."),
     INVALID_FILE(UNPROCESSABLE_ENTITY, "부적절한 파일입니다."),
     UPLOAD_FAILED(INTERNAL_SERVER_ERROR, "업로드를 실패하였습니다."),
     FILE_NOT_FOUND(NOT_FOUND, "존재하지 않는 파일입니다."),
-    EXCEED_MAX_UPLOAD_COUNT(BAD_REQUEST, "서버에서 허용한 태스크 개수를 초과했습니다. 잠시후 시도해주세요."),
+    EXCEED_MAX_UPLOAD_COUNT(TOO_MANY_REQUESTS, "서버에서 허용한 태스크 개수를 초과했습니다. 잠시후 시도해주세요."),
     DELETED_FAILED(INTERNAL_SERVER_ERROR, "삭제를 실패하였습니다."),
-    NO_REQUIRED_FILE(BAD_REQUEST, "필수 파일이 입력되지 않았습니다.");
+    NO_REQUIRED_FILE(BAD_REQUEST, "필수 파일이 입력되지 않았습니다."),
+    PATH_NOT_ALLOWED(FORBIDDEN, "허용되지 않은 경로입니다."),
+    STORAGE_FULL(INSUFFICIENT_STORAGE, "서버 저장 공간이 부족합니다. 잠시후 시도해주세요."),
+
+    /* UPLOAD : 분할 업로드 */
+    UPLOAD_IS_NOT_EXIST(BAD_REQUEST, "존재하지 않는 업로드 세션입니다."),
+    INVALID_CHUNK(BAD_REQUEST, "조각 번호 또는 크기가 올바르지 않습니다."),
+    CHECKSUM_MISMATCH(UNPROCESSABLE_ENTITY, "조각의 체크섬이 일치하지 않습니다."),
+    UPLOAD_IS_NOT_COMPLETE(BAD_REQUEST, "아직 도착하지 않은 조각이 있습니다.");
 
     private final HttpStatus httpStatus;
     private final String detail;
@@ -1,10 +1,12 @@
 package com.gu.encodingvideo.exception;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDateTime;
@@ -21,6 +23,29 @@ public class ErrorResponse {
     String code;
     String message;
 
+    /* 대기열이 가득 찬 경우 (429): 다시 시도할 때까지 기다릴 시간(초)과 받아들였다면 대기 순서 */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Long retryAfter;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Integer queuePosition;
+
+    public static ResponseEntity<ErrorResponse> toResponseEntity(TooManyRequestsException e) {
+        ErrorCode errorCode = e.getErrorCode();
+        return ResponseEntity
+            .status(errorCode.getHttpStatus())
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter()))
+            .body(ErrorResponse.builder()
+                .status(errorCode.getHttpStatus().value())
+                .error(errorCode.getHttpStatus().name())
+                .code(errorCode.name())
+                .message(errorCode.getDetail())
+                .retryAfter(e.getRetryAfter())
+                .queuePosition(e.getQueuePosition())
+                .build()
+            );
+    }
+
     public static ResponseEntity<ErrorResponse> toResponseEntity(ErrorCode errorCode) {
         return ResponseEntity
             .status(errorCode.getHttpStatus())
@@ -0,0 +1,22 @@
+package com.gu.encodingvideo.exception;
+
+import lombok.Getter;
+
+/**
+ * 대기열이 가득 차 작업을 받지 않음 (429, Retry-After)
+ */
+@Getter
+public class TooManyRequestsException extends BadRequestException {
+
+    /* 다시 시도할 때까지 기다릴 시간 (초) */
+    private final long retryAfter;
+
+    /* 받아들였다면 대기 순서 (1부터) */
+    private final int queuePosition;
+
+    public TooManyRequestsException(long retryAfter, int queuePosition) {
+        super(ErrorCode.EXCEED_MAX_UPLOAD_COUNT);
+        this.retryAfter = retryAfter;
+        this.queuePosition = queuePosition;
+    }
+}
@@ -2,6 +2,7 @@ package com.gu.encodingvideo.exception.handler;
 
 import com.gu.encodingvideo.exception.BadRequestException;
 import com.gu.encodingvideo.exception.ErrorResponse;
+import com.gu.encodingvideo.exception.TooManyRequestsException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -13,6 +14,13 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 @ControllerAdvice
 public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
 
+    /* 부하로 인한 거절은 예상된 응답이므로 스택을 남기지 않는다 */
+    @ExceptionHandler(TooManyRequestsException.class)
+    protected ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException e) {
+        log.warn("Rejected: retry after {}s, queue position {}", e.getRetryAfter(), e.getQueuePosition());
+        return ErrorResponse.toResponseEntity(e);
+    }
+
     @ExceptionHandler(BadRequestException.class)
     protected ResponseEntity<ErrorResponse> handleCustomException(BadRequestException e) {
         log.error(e.getMessage(), e);
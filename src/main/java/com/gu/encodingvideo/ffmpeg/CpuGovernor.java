@@ -0,0 +1,113 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 인코더 스레드 배분
+ * 설정한 CPU 예산을 실행 중인 인코딩 프로세스에 나누어 준다.
+ * 실행 중인 프로세스의 스레드 수는 바꿀 수 없으므로, 프로세스(구간)가 시작될 때마다
+ * 그 시점의 실행 수와 남은 예산으로 스레드 수를 정한다. 할당 합계는 예산을 넘지 않으며,
+ * 남은 예산이 없으면 다른 프로세스가 반납할 때까지 기다린다.
+ * 미리보기는 이 배분을 거치지 않고, 미리보기 몫(workers x threads)을 예산에서 빼 둔다.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class CpuGovernor {
+
+    /* libvpx-vp9 가 효과적으로 사용하는 최대 스레드 수 */
+    private static final int MAX_THREADS = 16;
+
+    @Getter
+    final int budget;
+
+    /* 동시에 실행될 것으로 보는 프로세스 수 (코어 수 / cores-per-job) */
+    final int slots;
+
+    /* 슬롯 하나의 몫 (budget / slots). 아직 시작하지 않은 슬롯마다 이만큼 남겨 둔다 */
+    final int share;
+
+    int active;
+
+    int allocated;
+
+    /**
+     * @param cpuBudget      인코딩에 사용할 코어 수 (0 이하: 전체 코어)
+     * @param coresPerJob    프로세스당 코어 수
+     * @param previewWorkers 미리보기 워커 수
+     * @param previewThreads 미리보기 프로세스당 스레드 수
+     */
+    public CpuGovernor(@Value("${app-config.encoding.cpu-budget:0}") int cpuBudget,
+                       @Value("${app-config.encoding.cores-per-job:4}") int coresPerJob,
+                       @Value("${app-config.encoding.preview.workers:1}") int previewWorkers,
+                       @Value("${app-config.encoding.preview.threads:2}") int previewThreads) {
+        int total = cpuBudget > 0 ? cpuBudget : Runtime.getRuntime().availableProcessors();
+        this.budget = Math.max(1, total - Math.max(0, previewWorkers) * Math.max(0, previewThreads));
+        this.slots = Math.max(1, budget / Math.max(1, coresPerJob));
+        this.share = Math.max(1, budget / slots);
+    }
+
+    /**
+     * 인코딩 프로세스 시작 전에 스레드를 할당받는다.
+     * 슬롯 몫과 실행 수로 나눈 몫 중 큰 값을 넘지 않고, 비어 있는 슬롯의 몫을 남기며, 남은 예산을 넘지 않는다.
+     * 프로세스는 끝날 때까지 스레드를 가지고 있으므로 먼저 시작한 프로세스가 예산을 독차지하지 않게 한다.
+     * 남은 예산이 없으면 반납될 때까지 기다린다.
+     */
+    public synchronized Lease acquire() throws InterruptedException {
+        while (budget - allocated < 1) {
+            wait();
+        }
+        active++;
+        int available = budget - allocated;
+        int reserve = Math.max(0, slots - active) * share;
+        int fairShare = Math.max(share, budget / active);
+        int threads = Math.min(MAX_THREADS, Math.min(fairShare, available - reserve));
+        threads = Math.min(available, Math.max(1, threads));
+        allocated += threads;
+        log.debug("Encoder threads: {} (active: {}, allocated: {}/{})", threads, active, allocated, budget);
+        return new Lease(threads);
+    }
+
+    private synchronized void release(int threads) {
+        active--;
+        allocated -= threads;
+        notifyAll();
+    }
+
+    public synchronized int getActive() {
+        return active;
+    }
+
+    public synchronized int getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * 프로세스 종료 후 반납한다.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public class Lease implements AutoCloseable {
+
+        private final int threads;
+
+        private boolean closed;
+
+        @Override
+        public void close() {
+            synchronized (CpuGovernor.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            release(threads);
+        }
+    }
+}
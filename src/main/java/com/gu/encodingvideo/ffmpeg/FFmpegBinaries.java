@@ -0,0 +1,52 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 운영체제별 FFmpeg / FFprobe 실행 파일 경로
+ */
+@Component
+public class FFmpegBinaries {
+    final String OS = System.getProperty("os.name").toLowerCase();
+    public boolean IS_MAC = (OS.contains("mac"));
+    public boolean IS_UNIX = (OS.contains("nix") || OS.contains("nux") || OS.indexOf("aix") > 0);
+    public boolean IS_WINDOWS = OS.contains("windows");
+
+    @Value("${app-config.file-upload.base-path}")
+    private String basePath;
+
+    public String getFFmpegPath() {
+        return resolve("ffmpeg");
+    }
+
+    public String getFFprobePath() {
+        return resolve("ffprobe");
+    }
+
+    /**
+     * 동봉된 VMAF 모델 경로 (bin/model)
+     */
+    public String getVmafModelPath(String model) {
+        return resolve(Paths.get("model", model).toString());
+    }
+
+    private String resolve(String binary) {
+        Path binaryPaths = Paths.get(
+                basePath,
+                "binary",
+                IS_UNIX ? "linux" :
+                        IS_MAC ? "mac" :
+                                IS_WINDOWS ? "windows" : "",
+                "bin",
+                binary);
+        if (IS_UNIX || IS_WINDOWS || IS_MAC) {
+            return binaryPaths.toAbsolutePath().toString();
+        } else {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import com.gu.encodingvideo.config.EncodingLadderProperties;
+import com.gu.encodingvideo.job.EncodingPreset;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * FFmpeg 명령어 생성
+ */
+@Component
+@RequiredArgsConstructor
+public class FFmpegCommands {
+
+    /* LIVE 초기화 세그먼트 */
+    public static final String LIVE_INIT_SEGMENT = "init.webm";
+
+    private final FFmpegBinaries binaries;
+
+    /* 단일 인코딩 최대 세로 해상도. 이보다 작은 영상은 업스케일 하지 않는다 */
+    @Getter
+    @Value("${app-config.encoding.max-height:1080}")
+    private int maxHeight;
+
+    /**
+     * VP9 WebM 인코딩
+     *
+     * @param crf     목표 품질 모드에서 고른 CRF. null 이면 libvpx 기본값
+     * @param threads 인코더 스레드 수 (CpuGovernor)
+     */
+    public List<String> encodeWebm(String input, String output, EncodingPreset preset, Integer crf, int threads) {
+        List<String> cmd = new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-i",
+                input
+        ));
+        cmd.addAll(encodeOptions(preset, crf));
+        cmd.addAll(threadOptions(threads, maxHeight));
+        cmd.add("-y");
+        cmd.add(output);
+        return cmd;
+    }
+
+    /**
+     * 인코딩 결과를 결정하는 옵션 (캐시 키에 포함)
+     */
+    public List<String> encodeOptions(EncodingPreset preset, Integer crf) {
+        List<String> options = new ArrayList<>(List.of(
+                "-c:v",
+                "libvpx-vp9",
+                "-vf",
+                scaleFilter(),
+                "-an"
+        ));
+        options.addAll(presetOptions(preset));
+        if (crf != null) {
+            /* 고정 품질 모드 */
+            options.addAll(List.of("-crf", String.valueOf(crf), "-b:v", "0"));
+        }
+        return options;
+    }
+
+    /**
+     * 최대 해상도 이하로 축소 (업스케일 하지 않음, 비율 유지)
+     */
+    private String scaleFilter() {
+        return "scale=-2:'min(" + maxHeight + ",trunc(ih/2)*2)'";
+    }
+
+    /**
+     * 입력의 한 구간만 인코딩 (목표 품질 모드의 샘플)
+     */
+    public List<String> encodeSample(String input, double start, double duration, String output,
+                                     EncodingPreset preset, int crf, int threads) {
+        List<String> cmd = new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-ss",
+                String.format(Locale.ROOT, "%.3f", start),
+                "-t",
+                String.format(Locale.ROOT, "%.3f", duration),
+                "-i",
+                input
+        ));
+        cmd.addAll(encodeOptions(preset, crf));
+        cmd.addAll(threadOptions(threads, maxHeight));
+        cmd.add("-y");
+        cmd.add(output);
+        return cmd;
+    }
+
+    /**
+     * 샘플과 원본 구간의 VMAF 측정. 원본은 인코딩과 같은 크기로 축소하여 비교한다.
+     *
+     * @param logPath JSON 결과 파일
+     */
+    public List<String> vmaf(String sample, String reference, double start, double duration,
+                             String model, String logPath, int threads) {
+        String filter = "[0:v]format=yuv420p,setpts=PTS-STARTPTS[dist];"
+                + "[1:v]" + scaleFilter() + ",format=yuv420p,setpts=PTS-STARTPTS[ref];"
+                + "[dist][ref]libvmaf=model=path=" + escapeFilterValue(binaries.getVmafModelPath(model))
+                + ":log_fmt=json:log_path=" + escapeFilterValue(logPath)
+                + ":n_threads=" + threads;
+        return new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-i",
+                sample,
+                "-ss",
+                String.format(Locale.ROOT, "%.3f", start),
+                "-t",
+                String.format(Locale.ROOT, "%.3f", duration),
+                "-i",
+                reference,
+                "-lavfi",
+                filter,
+                "-f",
+                "null",
+                "-"
+        ));
+    }
+
+    /* 필터 옵션 값의 ':' 는 필터 그래프와 옵션 두 단계로 이스케이프한다 */
+    private static String escapeFilterValue(String value) {
+        return value.replace('\\', '/').replace(":", "\\\\:");
+    }
+
+    /**
+     * 속도/품질 프리셋
+     */
+    private List<String> presetOptions(EncodingPreset preset) {
+        return List.of(
+                "-deadline",
+                preset.getDeadline(),
+                "-cpu-used",
+                String.valueOf(preset.getCpuUsed())
+        );
+    }
+
+    /**
+     * 스레드, 타일, 행 단위 멀티스레딩
+     * VP9 타일 열은 최소 256px 이므로 출력 너비(16:9 기준)가 허용하는 만큼만 나눈다.
+     */
+    List<String> threadOptions(int threads, int height) {
+        int maxTileColumns = log2(Math.max(1, height * 16 / 9 / 256));
+        int tileColumns = Math.min(log2(threads), maxTileColumns);
+        return List.of(
+                "-threads",
+                String.valueOf(threads),
+                "-tile-columns",
+                String.valueOf(tileColumns),
+                "-row-mt",
+                "1"
+        );
+    }
+
+    private static int log2(int value) {
+        return 31 - Integer.numberOfLeadingZeros(Math.max(1, value));
+    }
+
+    /**
+     * 저해상도 미리보기. VP8 실시간 설정, 목표 비트레이트로 빠르게 인코딩
+     *
+     * @param height 최대 세로 해상도 (업스케일 하지 않음)
+     */
+    public List<String> encodePreview(String input, String output, int height, String bitrate, int threads) {
+        return new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-i",
+                input,
+                "-map",
+                "0:v:0",
+                "-c:v",
+                "libvpx",
+                "-vf",
+                "scale=-2:'min(" + height + ",trunc(ih/2)*2)'",
+                "-an",
+                "-deadline",
+                "realtime",
+                "-cpu-used",
+                "8",
+                "-b:v",
+                bitrate,
+                "-threads",
+                String.valueOf(threads),
+                "-f",
+                "webm",
+                "-y",
+                output
+        ));
+    }
+
+    /**
+     * 재인코딩 없이 비디오 스트림만 WebM 으로 옮김
+     */
+    public List<String> remuxWebm(String input, String output) {
+        return new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-i",
+                input,
+                "-map",
+                "0:v:0",
+                "-c:v",
+                "copy",
+                "-an",
+                "-f",
+                "webm",
+                "-y",
+                output
+        ));
+    }
+
+    /**
+     * 한 번 디코딩하여 split/scale 필터로 해상도별 VP9 WebM 을 동시에 출력 (ABR)
+     * 해상도 간 키프레임이 일치하도록 GOP 를 고정하고 DASH 용 cue 를 기록한다.
+     */
+    public List<String> encodeLadder(String input, List<EncodingLadderProperties.Rendition> renditions, int keyframeInterval,
+                                     EncodingPreset preset, int threads) {
+        /* 한 프로세스의 모든 출력이 스레드를 나누어 쓴다 */
+        int threadsPerRendition = Math.max(1, threads / renditions.size());
+
+        StringBuilder filter = new StringBuilder("[0:v]split=").append(renditions.size());
+        for (int i = 0; i < renditions.size(); i++) {
+            filter.append("[s").append(i).append(']');
+        }
+        for (int i = 0; i < renditions.size(); i++) {
+            filter.append(";[s").append(i).append("]scale=-2:").append(renditions.get(i).getHeight())
+                    .append("[v").append(i).append(']');
+        }
+
+        List<String> cmd = new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-i",
+                input,
+                "-filter_complex",
+                filter.toString()
+        ));
+
+        for (int i = 0; i < renditions.size(); i++) {
+            EncodingLadderProperties.Rendition rendition = renditions.get(i);
+            cmd.addAll(List.of(
+                    "-map", "[v" + i + "]",
+                    "-c:v", "libvpx-vp9",
+                    "-b:v", rendition.getBitrate(),
+                    "-g", String.valueOf(keyframeInterval),
+                    "-keyint_min", String.valueOf(keyframeInterval),
+                    "-an"
+            ));
+            cmd.addAll(presetOptions(preset));
+            cmd.addAll(threadOptions(threadsPerRendition, rendition.getHeight()));
+            cmd.addAll(List.of(
+                    "-f", "webm",
+                    "-dash", "1",
+                    "-y", rendition.getName() + ".webm"
+            ));
+        }
+        return cmd;
+    }
+
+    /**
+     * 인코딩하면서 DASH WebM 세그먼트와 manifest 를 기록 (LIVE)
+     * 세그먼트 경계마다 키프레임을 강제하여 세그먼트가 끝나는 즉시 재생할 수 있게 한다.
+     *
+     * @param segmentDuration 세그먼트 길이 (초)
+     */
+    public List<String> encodeLiveDash(String input, String manifest, double segmentDuration, EncodingPreset preset,
+                                       int threads) {
+        List<String> cmd = new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-i",
+                input
+        ));
+        cmd.addAll(encodeOptions(preset, null));
+        cmd.addAll(threadOptions(threads, maxHeight));
+        cmd.addAll(List.of(
+                "-force_key_frames", "expr:gte(t,n_forced*" + segmentDuration + ")",
+                "-f", "dash",
+                "-dash_segment_type", "webm",
+                "-seg_duration", String.valueOf(segmentDuration),
+                "-use_template", "1",
+                "-use_timeline", "1",
+                "-init_seg_name", LIVE_INIT_SEGMENT,
+                "-media_seg_name", "chunk-$Number%05d$.webm",
+                "-y", manifest
+        ));
+        return cmd;
+    }
+
+    /**
+     * 해상도별 WebM 으로 DASH manifest 생성
+     */
+    public List<String> dashManifest(List<String> renditionFiles, String output) {
+        List<String> cmd = new ArrayList<>(List.of(binaries.getFFmpegPath()));
+        for (String file : renditionFiles) {
+            cmd.addAll(List.of("-f", "webm_dash_manifest", "-i", file));
+        }
+        cmd.addAll(List.of("-c", "copy"));
+        for (int i = 0; i < renditionFiles.size(); i++) {
+            cmd.addAll(List.of("-map", String.valueOf(i)));
+        }
+        cmd.addAll(List.of(
+                "-f", "webm_dash_manifest",
+                "-adaptation_sets", "id=0,streams=" + IntStream.range(0, renditionFiles.size())
+                        .mapToObj(String::valueOf)
+                        .collect(Collectors.joining(",")),
+                "-y", output
+        ));
+        return cmd;
+    }
+
+    /**
+     * 비디오 스트림을 재인코딩 없이 주어진 시각(키프레임)에서 분할
+     *
+     * @param pattern 구간 파일명 패턴 (예: segment_%04d.mkv)
+     */
+    public List<String> splitAtKeyframes(String input, List<Double> times, String pattern) {
+        return new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-i",
+                input,
+                "-map",
+                "0:v:0",
+                "-c",
+                "copy",
+                "-f",
+                "segment",
+                "-segment_times",
+                times.stream().map(time -> String.format(Locale.ROOT, "%.6f", time)).collect(Collectors.joining(",")),
+                "-reset_timestamps",
+                "1",
+                "-y",
+                pattern
+        ));
+    }
+
+    /**
+     * concat demuxer 로 구간 파일을 재인코딩 없이 이어 붙임
+     *
+     * @param listFile "file '...'" 형식의 목록 파일
+     */
+    public List<String> concat(String listFile, String output) {
+        return new ArrayList<>(List.of(
+                binaries.getFFmpegPath(),
+                "-f",
+                "concat",
+                "-safe",
+                "0",
+                "-i",
+                listFile,
+                "-c",
+                "copy",
+                "-y",
+                output
+        ));
+    }
+}
@@ -0,0 +1,71 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * FFmpeg -progress 출력 한 블록
+ */
+@Getter
+@Builder
+@Jacksonized
+@Schema(title = "인코딩 진행 정보", description = "인코딩 진행 정보")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class FFmpegProgress {
+
+    @Schema(description = "인코딩 완료 구간(초)")
+    double outTime;
+
+    @Schema(description = "인코딩 완료 프레임 수")
+    long frame;
+
+    @Schema(description = "초당 인코딩 프레임 수")
+    double fps;
+
+    @Schema(description = "출력 비트레이트(kbit/s)")
+    double bitrate;
+
+    @Schema(description = "실시간 대비 인코딩 속도 (1.0 = 실시간)")
+    double speed;
+
+    @Schema(description = "진행률(%). 총 길이를 모르면 null")
+    Double percent;
+
+    @Schema(description = "남은 시간(초). 총 길이나 속도를 모르면 null")
+    Double eta;
+
+    @Schema(description = "마지막 진행 정보 여부")
+    boolean end;
+
+    /**
+     * 총 길이와 속도로 진행률, 남은 시간 계산
+     */
+    public static FFmpegProgress of(double outTime, long frame, double fps, double bitrate, double speed,
+                                    double duration, boolean end) {
+        Double percent = null;
+        Double eta = null;
+        if (duration > 0) {
+            percent = Math.min(100.0, outTime * 100.0 / duration);
+            if (end) {
+                eta = 0.0;
+            } else if (speed > 0) {
+                eta = Math.max(0, duration - outTime) / speed;
+            }
+        }
+
+        return FFmpegProgress.builder()
+                .outTime(outTime)
+                .frame(frame)
+                .fps(fps)
+                .bitrate(bitrate)
+                .speed(speed)
+                .percent(percent)
+                .eta(eta)
+                .end(end)
+                .build();
+    }
+}
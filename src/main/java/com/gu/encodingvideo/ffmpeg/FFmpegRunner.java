@@ -0,0 +1,138 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.JobStatus;
+import com.gu.encodingvideo.metrics.EncodingMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 작업 단위 FFmpeg 프로세스 실행
+ * 진행 정보는 -progress pipe:1 (표준 출력)으로 받아 ProcessSupervisor 가 읽고,
+ * FFmpeg 로그(표준 에러)는 작업 폴더의 ffmpeg.log 에 남긴다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FFmpegRunner {
+
+    public static final String LOG_FILE = "ffmpeg.log";
+
+    /* 취소 또는 중단되어 시작하지 않은 프로세스의 종료 코드 */
+    public static final int ABORTED_EXIT_CODE = -1;
+
+    private final EncodingMetrics metrics;
+
+    private final ProcessSupervisor supervisor;
+
+    /**
+     * 실행 후 종료될 때까지 호출 스레드가 대기
+     * 워커 풀(encodingExecutor, segmentExecutor)의 스레드 수를 동시에 실행하는 FFmpeg 프로세스 수의 상한으로 쓰므로
+     * 워커 스레드는 의도적으로 프로세스가 끝날 때까지 붙잡아 둔다. 진행 정보 읽기, 종료 감지에는 스레드를 쓰지 않는다.
+     *
+     * @param duration 입력 총 길이(초). 0 이하면 모름
+     * @return 종료 코드
+     * @throws InterruptedException 대기 중 중단되었거나 애플리케이션 종료로 프로세스가 중단된 경우
+     */
+    public int run(EncodingJob job, File directory, List<String> cmd, double duration,
+                   Consumer<FFmpegProgress> listener) throws IOException, InterruptedException {
+        return await(start(job, directory, cmd, duration, listener));
+    }
+
+    /**
+     * 시작한 프로세스의 종료 대기. 대기 중 중단되면 프로세스를 종료한다.
+     *
+     * @throws InterruptedException 대기 중 중단되었거나 애플리케이션 종료로 프로세스가 중단된 경우
+     */
+    public static int await(CompletableFuture<Integer> exit) throws IOException, InterruptedException {
+        try {
+            return exit.get();
+        } catch (InterruptedException e) {
+            exit.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ProcessSupervisor.ShutdownException) {
+                throw new InterruptedException(e.getCause().getMessage());
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 실행. 종료는 ProcessSupervisor 가 Process.onExit() 로 받아 완료한다 (대기 여부는 호출한 쪽이 정한다).
+     *
+     * @param duration 입력 총 길이(초). 0 이하면 모름
+     * @return 종료 코드. 취소하면 프로세스를 종료한다.
+     */
+    public CompletableFuture<Integer> start(EncodingJob job, File directory, List<String> cmd, double duration,
+                                            Consumer<FFmpegProgress> listener) throws IOException {
+        /* 취소 또는 중단된 작업은 시작하지 않는다 */
+        if (isStopped(job)) {
+            log.info("[{}] Not starting FFmpeg: job is {}", job.getId(), job.isAborted() ? "aborted" : job.getStatus());
+            return CompletableFuture.completedFuture(ABORTED_EXIT_CODE);
+        }
+
+        List<String> command = new ArrayList<>(cmd);
+        command.addAll(1, List.of("-progress", "pipe:1", "-nostats"));
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.directory(directory);
+        builder.redirectError(ProcessBuilder.Redirect.appendTo(job.getWorkDir().resolve(LOG_FILE).toFile()));
+
+        log.info("[{}] BUILDER: {}", job.getId(), builder.directory());
+        log.info("[{}] COMMAND: {}", job.getId(), builder.command());
+        Process prc = builder.start();
+        long startedAt = System.nanoTime();
+        job.addProcess(prc);
+        metrics.processStarted();
+
+        /* 프로세스 시작 직전에 취소 또는 중단된 작업 */
+        if (isStopped(job)) {
+            destroyProcessTree(prc);
+        }
+
+        /* 마지막 진행 정보 (speed, fps 지표) */
+        AtomicReference<FFmpegProgress> last = new AtomicReference<>();
+        CompletableFuture<Integer> exit = supervisor.supervise(job, prc, duration, progress -> {
+                    last.set(progress);
+                    listener.accept(progress);
+                })
+                .whenComplete((exitCode, e) -> {
+                    job.removeProcess(prc);
+                    long elapsed = System.nanoTime() - startedAt;
+                    job.getTimings().addFFmpegMillis(TimeUnit.NANOSECONDS.toMillis(elapsed));
+                    metrics.processFinished(exitCode != null ? exitCode : -1, elapsed, last.get());
+                    log.info("[{}] FFmpeg Exit Code: {}", job.getId(), exitCode);
+                });
+        exit.whenComplete((exitCode, e) -> {
+            if (e instanceof CancellationException) {
+                destroyProcessTree(prc);
+            }
+        });
+        return exit;
+    }
+
+    private static boolean isStopped(EncodingJob job) {
+        return job.isAborted() || job.getStatus() == JobStatus.CANCELLED;
+    }
+
+    /**
+     * 프로세스와 하위 프로세스 모두 종료
+     */
+    public static void destroyProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroy);
+        process.destroy();
+    }
+}
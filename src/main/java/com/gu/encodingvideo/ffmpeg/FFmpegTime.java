@@ -0,0 +1,19 @@
+package com.gu.encodingvideo.ffmpeg;
+
+/**
+ * FFmpeg 시간 표기(HH:MM:SS.xx)
+ */
+public final class FFmpegTime {
+
+    private FFmpegTime() {
+    }
+
+    /**
+     * 초 → HH:MM:SS.xx
+     */
+    public static String format(double seconds) {
+        long centis = Math.round(Math.max(0, seconds) * 100);
+        return String.format("%02d:%02d:%02d.%02d",
+                centis / 360000, (centis / 6000) % 60, (centis / 100) % 60, centis % 100);
+    }
+}
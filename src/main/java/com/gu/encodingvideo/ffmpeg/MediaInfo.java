@@ -0,0 +1,35 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * FFprobe 로 확인한 입력 파일 정보
+ */
+@Getter
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class MediaInfo {
+
+    /* 컨테이너 형식 (예: mov,mp4,m4a,3gp,3g2,mj2) */
+    String formatName;
+
+    /* Matroska 계열의 EBML DocType (webm, matroska). 그 외 컨테이너는 null */
+    String docType;
+
+    /* 재생 시간(초) */
+    double duration;
+
+    /* 첫 번째 비디오 스트림 */
+    String videoCodec;
+    int width;
+    int height;
+
+    /* 오디오 스트림 코덱 (없으면 빈 목록) */
+    @Builder.Default
+    List<String> audioCodecs = List.of();
+}
@@ -0,0 +1,194 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import net.bramp.ffmpeg.FFprobe;
+import net.bramp.ffmpeg.probe.FFmpegProbeResult;
+import net.bramp.ffmpeg.probe.FFmpegStream;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * FFprobe 로 입력 파일 분석
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class MediaProbe {
+
+    /* EBML 헤더 요소와 DocType 요소 ID */
+    private static final long EBML_ID = 0x1A45DFA3L;
+    private static final long DOC_TYPE_ID = 0x4282L;
+
+    /* EBML 헤더는 보통 40 byte 이내 */
+    private static final int EBML_HEADER_READ = 256;
+
+    private final FFmpegBinaries binaries;
+
+    private volatile FFprobe ffprobe;
+
+    /**
+     * 컨테이너, 재생 시간, 비디오 코덱 및 해상도 조회
+     */
+    public MediaInfo probe(Path input) throws IOException {
+        FFmpegProbeResult result = ffprobe().probe(input.toAbsolutePath().toString());
+
+        FFmpegStream video = result.getStreams().stream()
+                .filter(stream -> stream.codec_type == FFmpegStream.CodecType.VIDEO)
+                .findFirst()
+                .orElse(null);
+
+        List<String> audioCodecs = result.getStreams().stream()
+                .filter(stream -> stream.codec_type == FFmpegStream.CodecType.AUDIO)
+                .map(stream -> stream.codec_name)
+                .collect(Collectors.toList());
+
+        String formatName = result.getFormat().format_name;
+        return MediaInfo.builder()
+                .formatName(formatName)
+                .docType(formatName != null && formatName.contains("matroska") ? docType(input) : null)
+                .duration(result.getFormat().duration)
+                .videoCodec(video != null ? video.codec_name : null)
+                .width(video != null ? video.width : 0)
+                .height(video != null ? video.height : 0)
+                .audioCodecs(audioCodecs)
+                .build();
+    }
+
+    /**
+     * EBML 헤더의 DocType (webm, matroska)
+     * FFprobe 는 두 형식을 같은 demuxer(matroska,webm)로 분석하므로 파일 헤더를 직접 읽는다.
+     *
+     * @return DocType. EBML 파일이 아니거나 읽을 수 없으면 null
+     */
+    static String docType(Path input) throws IOException {
+        byte[] data = new byte[EBML_HEADER_READ];
+        int limit;
+        try (InputStream in = Files.newInputStream(input)) {
+            limit = in.readNBytes(data, 0, data.length);
+        }
+
+        long[] id = readVint(data, 0, limit, true);
+        if (id == null || id[0] != EBML_ID) {
+            return null;
+        }
+        int pos = (int) id[1];
+        long[] size = readVint(data, pos, limit, false);
+        if (size == null) {
+            return null;
+        }
+        pos += (int) size[1];
+        long end = Math.min(limit, pos + size[0]);
+
+        while (pos < end) {
+            long[] childId = readVint(data, pos, limit, true);
+            if (childId == null) {
+                return null;
+            }
+            pos += (int) childId[1];
+            long[] childSize = readVint(data, pos, limit, false);
+            if (childSize == null) {
+                return null;
+            }
+            pos += (int) childSize[1];
+            if (childId[0] == DOC_TYPE_ID) {
+                int length = (int) Math.min(childSize[0], end - pos);
+                /* 문자열 뒤의 NUL 채움 제거 */
+                return new String(data, pos, Math.max(0, length), StandardCharsets.US_ASCII).replace("\0", "");
+            }
+            pos = (int) Math.min(end, pos + childSize[0]);
+        }
+        return null;
+    }
+
+    /**
+     * EBML 가변 길이 정수
+     *
+     * @param keepMarker 요소 ID 는 길이 표시 비트를 포함한 값으로 비교한다
+     * @return {값, 바이트 수}. 범위를 벗어나면 null
+     */
+    private static long[] readVint(byte[] data, int pos, int limit, boolean keepMarker) {
+        if (pos >= limit) {
+            return null;
+        }
+        int first = data[pos] & 0xff;
+        int width = Integer.numberOfLeadingZeros(first) - 23;
+        if (first == 0 || pos + width > limit) {
+            return null;
+        }
+        long value = keepMarker ? first : first & (0xff >> width);
+        for (int i = 1; i < width; i++) {
+            value = (value << 8) | (data[pos + i] & 0xff);
+        }
+        return new long[]{value, width};
+    }
+
+    /**
+     * 첫 번째 비디오 스트림의 키프레임 시각(초) 목록
+     * 디코딩 없이 패킷 플래그만 읽는다.
+     */
+    public List<Double> keyframeTimes(Path input) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(
+                binaries.getFFprobePath(),
+                "-v", "error",
+                "-select_streams", "v:0",
+                "-show_entries", "packet=pts_time,flags",
+                "-of", "csv=print_section=0",
+                input.toAbsolutePath().toString());
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        Process process = builder.start();
+        List<Double> keyframes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                /* pts_time,flags (예: 12.345000,K_) */
+                int comma = line.indexOf(',');
+                if (comma > 0 && line.indexOf('K', comma) > 0) {
+                    try {
+                        keyframes.add(Double.parseDouble(line.substring(0, comma)));
+                    } catch (NumberFormatException ignored) {
+                        /* pts_time=N/A */
+                    }
+                }
+            }
+        }
+
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("ffprobe exited with " + process.exitValue());
+            }
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+
+        keyframes.sort(Double::compare);
+        return keyframes;
+    }
+
+    private FFprobe ffprobe() throws IOException {
+        if (ffprobe == null) {
+            synchronized (this) {
+                if (ffprobe == null) {
+                    ffprobe = new FFprobe(binaries.getFFprobePath());
+                }
+            }
+        }
+        return ffprobe;
+    }
+}
@@ -0,0 +1,232 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.metrics.EncodingMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * FFmpeg 프로세스 감시
+ * 프로세스마다 스레드를 만들지 않고, 작은 고정 풀에서 주기적으로 표준 출력(-progress)을 읽을 수 있는 만큼만 읽는다.
+ * 종료는 Process.onExit() 로 받고, 실행 시간 초과 또는 진행이 멈춘 프로세스는 하위 프로세스까지 종료한다.
+ */
+@Component
+@Slf4j
+public class ProcessSupervisor {
+
+    /* 표준 출력 확인 주기 (ms) */
+    private static final long POLL_MILLIS = 250;
+
+    /* 종료 요청 후 이 시간이 지나도 남아 있으면 강제 종료 */
+    private static final long KILL_GRACE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final EncodingMetrics metrics;
+
+    /* 진행(out_time, frame)이 이 시간(초) 동안 없으면 종료 (0: 확인 안 함) */
+    private final long stallNanos;
+
+    /* 프로세스 1개 최대 실행 시간(초) (0: 제한 없음) */
+    private final long maxWallNanos;
+
+    private final Set<Supervised> supervised = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean shuttingDown;
+
+    public ProcessSupervisor(EncodingMetrics metrics,
+                             @Value("${app-config.encoding.supervisor.threads:2}") int threads,
+                             @Value("${app-config.encoding.supervisor.stall-seconds:120}") long stallSeconds,
+                             @Value("${app-config.encoding.supervisor.max-wall-seconds:21600}") long maxWallSeconds) {
+        this.metrics = metrics;
+        this.stallNanos = TimeUnit.SECONDS.toNanos(Math.max(0, stallSeconds));
+        this.maxWallNanos = TimeUnit.SECONDS.toNanos(Math.max(0, maxWallSeconds));
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "ffmpeg-supervisor-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 감시 시작
+     *
+     * @param duration 입력 총 길이(초). 0 이하면 모름
+     * @return 종료 코드. 종료 중(shutdown)에 중단된 프로세스는 {@link ShutdownException} 으로 완료된다.
+     */
+    public CompletableFuture<Integer> supervise(EncodingJob job, Process process, double duration,
+                                                Consumer<FFmpegProgress> listener) {
+        Supervised target = new Supervised(job, process, new ProgressParser(duration), listener);
+        supervised.add(target);
+
+        target.poller = scheduler.scheduleWithFixedDelay(target::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+        process.onExit().thenRun(() -> {
+            try {
+                scheduler.execute(target::finish);
+            } catch (RejectedExecutionException e) {
+                target.finish();
+            }
+        });
+        return target.result;
+    }
+
+    public int getSupervisedCount() {
+        return supervised.size();
+    }
+
+    /**
+     * 종료 시 남은 프로세스를 모두 종료. 작업은 실패로 기록하지 않고 재시작 후 이어서 하도록 중단으로 알린다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        for (Supervised target : supervised) {
+            FFmpegRunner.destroyProcessTree(target.process);
+            target.result.completeExceptionally(new ShutdownException());
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 종료 중 중단
+     */
+    public static class ShutdownException extends RuntimeException {
+
+        ShutdownException() {
+            super("Supervisor is shutting down");
+        }
+    }
+
+    private class Supervised {
+
+        final EncodingJob job;
+        final Process process;
+        final ProgressParser parser;
+        final Consumer<FFmpegProgress> listener;
+        final InputStream input;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        final long startedAt = System.nanoTime();
+        final StringBuilder line = new StringBuilder();
+        final byte[] buffer = new byte[8192];
+
+        ScheduledFuture<?> poller;
+        long lastAdvanceAt = startedAt;
+        double lastOutTime = -1;
+        long lastFrame = -1;
+        String killedFor;
+        long killedAt;
+
+        Supervised(EncodingJob job, Process process, ProgressParser parser, Consumer<FFmpegProgress> listener) {
+            this.job = job;
+            this.process = process;
+            this.parser = parser;
+            this.listener = listener;
+            this.input = process.getInputStream();
+        }
+
+        synchronized void poll() {
+            if (result.isDone()) {
+                return;
+            }
+            drain();
+
+            long now = System.nanoTime();
+            if (killedFor != null) {
+                if (now - killedAt > KILL_GRACE_NANOS) {
+                    process.descendants().forEach(ProcessHandle::destroyForcibly);
+                    process.destroyForcibly();
+                }
+            } else if (stallNanos > 0 && now - lastAdvanceAt > stallNanos) {
+                kill("stall");
+            } else if (maxWallNanos > 0 && now - startedAt > maxWallNanos) {
+                kill("wall-clock");
+            }
+        }
+
+        synchronized void finish() {
+            if (poller != null) {
+                poller.cancel(false);
+            }
+            drain();
+            supervised.remove(this);
+
+            if (shuttingDown) {
+                result.completeExceptionally(new ShutdownException());
+            } else {
+                result.complete(process.exitValue());
+            }
+        }
+
+        /**
+         * 막히지 않고 읽을 수 있는 만큼 읽어서 줄 단위로 파싱
+         */
+        private void drain() {
+            try {
+                int available;
+                while ((available = input.available()) > 0) {
+                    int read = input.read(buffer, 0, Math.min(buffer.length, available));
+                    if (read <= 0) {
+                        return;
+                    }
+                    for (int i = 0; i < read; i++) {
+                        char c = (char) buffer[i];
+                        if (c == '\n') {
+                            accept(line.toString().trim());
+                            line.setLength(0);
+                        } else {
+                            line.append(c);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("[{}] FFmpeg progress pipe closed: {}", job.getId(), e.getMessage());
+            }
+        }
+
+        private void accept(String text) {
+            FFmpegProgress progress = parser.accept(text);
+            if (progress == null) {
+                return;
+            }
+            if (progress.getOutTime() > lastOutTime || progress.getFrame() > lastFrame) {
+                lastOutTime = progress.getOutTime();
+                lastFrame = progress.getFrame();
+                lastAdvanceAt = System.nanoTime();
+            }
+            try {
+                listener.accept(progress);
+            } catch (RuntimeException e) {
+                log.error("[{}] Progress listener failed: {}", job.getId(), e.getMessage(), e);
+            }
+        }
+
+        private void kill(String reason) {
+            if (killedFor != null) {
+                return;
+            }
+            killedFor = reason;
+            killedAt = System.nanoTime();
+            log.warn("[{}] FFmpeg killed by watchdog ({}), pid {}", job.getId(), reason, process.pid());
+            metrics.processKilled(reason);
+            FFmpegRunner.destroyProcessTree(process);
+        }
+    }
+}
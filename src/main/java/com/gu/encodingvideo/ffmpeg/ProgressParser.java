@@ -0,0 +1,77 @@
+package com.gu.encodingvideo.ffmpeg;
+
+/**
+ * FFmpeg -progress 출력(key=value 줄 단위) 파서
+ * "progress=continue|end" 줄에서 블록이 끝나며, 그때마다 진행 정보를 만든다.
+ * 숫자는 줄을 자르지 않고 위치 기준으로 읽는다.
+ */
+public class ProgressParser {
+
+    /* 총 길이(초). 0 이하면 모름 */
+    private final double duration;
+
+    private long frame;
+    private double fps;
+    private double bitrate;
+    private long outTimeUs;
+    private double speed;
+
+    public ProgressParser(double duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * @return 블록이 끝난 줄이면 진행 정보, 아니면 null
+     */
+    public FFmpegProgress accept(String line) {
+        int eq = line.indexOf('=');
+        if (eq <= 0) {
+            return null;
+        }
+        int start = eq + 1;
+        int end = line.length();
+
+        if (is(line, "frame", eq)) {
+            frame = parseLong(line, start, end, frame);
+        } else if (is(line, "fps", eq)) {
+            fps = parseDouble(line, start, end, fps);
+        } else if (is(line, "bitrate", eq)) {
+            /* 예: 1234.5kbits/s */
+            bitrate = parseDouble(line, start, line.indexOf("kbits", start) > 0 ? line.indexOf("kbits", start) : end, bitrate);
+        } else if (is(line, "out_time_us", eq)) {
+            outTimeUs = parseLong(line, start, end, outTimeUs);
+        } else if (is(line, "speed", eq)) {
+            /* 예: 1.23x */
+            speed = parseDouble(line, start, end > start && line.charAt(end - 1) == 'x' ? end - 1 : end, speed);
+        } else if (is(line, "progress", eq)) {
+            boolean last = line.startsWith("end", start);
+            return FFmpegProgress.of(outTimeUs / 1_000_000.0, frame, fps, bitrate, speed, duration, last);
+        }
+        return null;
+    }
+
+    private static boolean is(String line, String key, int eq) {
+        return eq == key.length() && line.startsWith(key);
+    }
+
+    private static long parseLong(String line, int start, int end, long fallback) {
+        try {
+            return Long.parseLong(line, start, end, 10);
+        } catch (NumberFormatException e) {
+            /* N/A */
+            return fallback;
+        }
+    }
+
+    private static double parseDouble(String line, int start, int end, double fallback) {
+        if (start >= end || line.charAt(start) == 'N') {
+            /* N/A */
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(line.substring(start, end).trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
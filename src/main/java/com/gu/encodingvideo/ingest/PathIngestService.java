@@ -0,0 +1,398 @@
+package com.gu.encodingvideo.ingest;
+
+import com.gu.encodingvideo.EncodingService;
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.exception.ErrorCode;
+import com.gu.encodingvideo.exception.TooManyRequestsException;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.EncodingPreset;
+import com.gu.encodingvideo.job.EncodingProfile;
+import com.gu.encodingvideo.job.JobStatus;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 업로드 없이 공유 저장소의 파일로 작업 등록
+ * 감시 폴더(watch-dirs)에 새로 생긴 파일은 크기가 더 이상 늘지 않으면 등록하고, API 로 받은 서버 경로는 허용된 폴더 안에서만 등록한다.
+ * 원본은 복사하지 않고 링크하며, output-dir 이 있으면 완료된 결과를 그 아래 원본 이름 폴더에 둔다.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class PathIngestService {
+
+    /* 감시 폴더 (쉼표 구분, 하위 폴더는 감시하지 않음) */
+    @Value("${app-config.ingest.watch-dirs:}")
+    private List<String> watchDirs;
+
+    /* 서버 경로 등록을 허용하는 폴더 (감시 폴더 포함) */
+    @Value("${app-config.ingest.allowed-roots:}")
+    private List<String> allowedRoots;
+
+    /* 결과를 둘 폴더 (비우면 작업 폴더에만 둔다) */
+    @Value("${app-config.ingest.output-dir:}")
+    private String outputDir;
+
+    /* 이 시간(초) 동안 크기와 수정 시각이 그대로면 복사가 끝난 것으로 본다 */
+    @Value("${app-config.ingest.stable-seconds:10}")
+    private long stableSeconds;
+
+    /* 등록한 파일 기록. 링크, 속성 변경 이벤트와 재시작 후 같은 파일을 다시 등록하지 않는다 */
+    @Value("${app-config.ingest.state-file:${app-config.file-upload.base-path}/journal/ingested.tsv}")
+    private String stateFile;
+
+    @Value("${app-config.ingest.extensions:mp4,mov,mkv,webm,avi,ts,mpg,mpeg}")
+    private List<String> extensions;
+
+    /* 감시 폴더 작업의 인코딩 옵션 */
+    @Value("${app-config.ingest.profile:SINGLE}")
+    private EncodingProfile profile;
+
+    @Value("${app-config.ingest.preset:BALANCED}")
+    private EncodingPreset preset;
+
+    private final EncodingService encodingService;
+
+    /* 크기가 늘고 있는 파일 (감시 스레드만 사용) */
+    private final Map<Path, Pending> pending = new HashMap<>();
+
+    /* 등록한 파일 (파일 키, 크기, 수정 시각) → 경로 */
+    private final Map<String, Path> ingested = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+
+    private Thread watcher;
+
+    @PostConstruct
+    public void start() throws IOException {
+        List<Path> dirs = paths(watchDirs);
+        if (dirs.isEmpty()) {
+            return;
+        }
+
+        loadIngested();
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path dir : dirs) {
+            Files.createDirectories(dir);
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            /* 등록 전에 (또는 서버가 멈춘 동안) 들어온 파일은 이벤트가 없으므로 직접 찾는다 */
+            scan(dir);
+            log.info("Watching {}", dir);
+        }
+
+        watcher = new Thread(this::watchLoop, "ingest-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watcher.interrupt();
+            watchService.close();
+        }
+    }
+
+    /**
+     * 서버 경로로 작업 등록
+     */
+    public EncodingJob ingest(String path, EncodingOptions options) {
+        return submit(resolve(path), options);
+    }
+
+    /**
+     * 실제 경로(심볼릭 링크 해석)가 허용된 폴더 안의 파일이어야 한다.
+     */
+    Path resolve(String path) {
+        if (path == null || path.isBlank()) {
+            throw new BadRequestException(ErrorCode.NO_DATA);
+        }
+
+        Path source;
+        try {
+            source = Path.of(path).toRealPath();
+        } catch (IOException | RuntimeException e) {
+            throw new BadRequestException(ErrorCode.FILE_NOT_FOUND);
+        }
+
+        List<Path> roots = new ArrayList<>(paths(allowedRoots));
+        roots.addAll(paths(watchDirs));
+        boolean allowed = roots.stream().anyMatch(root -> {
+            try {
+                return source.startsWith(root.toRealPath());
+            } catch (IOException e) {
+                return false;
+            }
+        });
+        if (!allowed) {
+            throw new BadRequestException(ErrorCode.PATH_NOT_ALLOWED);
+        }
+        if (!Files.isRegularFile(source)) {
+            throw new BadRequestException(ErrorCode.FILE_NOT_FOUND);
+        }
+        return source;
+    }
+
+    EncodingJob submit(Path source, EncodingOptions options) {
+        EncodingJob job = encodingService.ingest(source.getFileName().toString(), source, options);
+        log.info("[{}] Ingested {}", job.getId(), source);
+        if (!outputDir.isBlank()) {
+            job.getCompletion().thenAccept(this::deliver);
+        }
+        return job;
+    }
+
+    /**
+     * 완료된 결과를 output-dir/{원본 이름}/ 에 링크 (다른 파일 시스템이면 복사)
+     */
+    private void deliver(EncodingJob job) {
+        if (job.getStatus() != JobStatus.COMPLETED || job.getOutputFile() == null) {
+            return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        files.add(job.getOutputFile());
+        files.addAll(job.getRenditionFiles());
+        files.addAll(job.getThumbnailFiles());
+
+        Path target = Path.of(outputDir, FilenameUtils.getBaseName(job.getOriginalFilename()));
+        try {
+            Files.createDirectories(target);
+            for (Path file : files) {
+                Path destination = target.resolve(file.getFileName());
+                Files.deleteIfExists(destination);
+                try {
+                    Files.createLink(destination, file);
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            log.info("[{}] Delivered {} files to {}", job.getId(), files.size(), target);
+        } catch (IOException e) {
+            log.error("[{}] Failed to deliver the output: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void watchLoop() {
+        EncodingOptions options = EncodingOptions.builder()
+                .profile(profile)
+                .preset(preset)
+                .clientId("watch-folder")
+                .build();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(1, TimeUnit.SECONDS);
+                if (key != null) {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            continue;
+                        }
+                        onEvent(dir.resolve((Path) event.context()));
+                    }
+                    key.reset();
+                }
+                submitStable(options, System.nanoTime());
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 감시 폴더에 이미 있는 파일을 대기 목록에 추가 (감시 스레드 시작 전에만 호출)
+     * 이전 실행에서 등록한 파일은 제외한다 (작업 기록으로 이어서 하거나 이미 끝난 작업).
+     */
+    void scan(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(Files::isRegularFile).forEach(this::onEvent);
+        }
+    }
+
+    /**
+     * 생성, 변경 이벤트. 등록한 파일에 링크를 만들거나(작업 폴더) 지울 때도 링크 수 변경으로 이벤트가 오므로
+     * 파일 키, 크기, 수정 시각이 같으면 무시한다.
+     */
+    void onEvent(Path file) {
+        if (!isCandidate(file) || pending.containsKey(file)) {
+            return;
+        }
+        try {
+            if (ingested.containsKey(ingestedKey(file, Files.readAttributes(file, BasicFileAttributes.class)))) {
+                return;
+            }
+        } catch (IOException e) {
+            return;
+        }
+        pending.put(file, new Pending());
+    }
+
+    /**
+     * 등록 기록을 읽는다. 지워졌거나 바뀐 파일의 기록은 버리고 파일을 다시 쓴다.
+     */
+    void loadIngested() throws IOException {
+        Path state = Path.of(stateFile);
+        if (!Files.exists(state)) {
+            return;
+        }
+        for (String line : Files.readAllLines(state, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            Path file = Path.of(line.substring(tab + 1));
+            try {
+                String key = ingestedKey(file, Files.readAttributes(file, BasicFileAttributes.class));
+                if (key.equals(line.substring(0, tab))) {
+                    ingested.put(key, file);
+                }
+            } catch (IOException | RuntimeException e) {
+                /* 지워진 파일 */
+            }
+        }
+        Files.write(state, ingested.entrySet().stream()
+                .map(entry -> entry.getKey() + "\t" + entry.getValue())
+                .collect(Collectors.toList()), StandardCharsets.UTF_8);
+    }
+
+    private void markIngested(Path file, BasicFileAttributes attributes) {
+        String key = ingestedKey(file, attributes);
+        ingested.put(key, file);
+        try {
+            Path state = Path.of(stateFile);
+            Files.createDirectories(state.toAbsolutePath().getParent());
+            Files.writeString(state, key + "\t" + file + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Failed to record the ingested file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 파일 키(장치, inode)가 없는 파일 시스템은 실제 경로로 대신한다.
+     */
+    private static String ingestedKey(Path file, BasicFileAttributes attributes) {
+        Object fileKey = attributes.fileKey();
+        return (fileKey != null ? fileKey.toString() : file.toAbsolutePath().toString())
+                + "/" + attributes.size() + "/" + attributes.lastModifiedTime().toMillis();
+    }
+
+    Map<Path, Pending> getPending() {
+        return pending;
+    }
+
+    /**
+     * 숨김 파일, 복사 중 임시 파일(.part, .tmp)은 제외
+     */
+    private boolean isCandidate(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return !name.startsWith(".") && extensions.stream().anyMatch(extension -> name.endsWith("." + extension));
+    }
+
+    /**
+     * 크기가 늘지 않는 파일을 등록
+     */
+    void submitStable(EncodingOptions options, long now) {
+        Iterator<Map.Entry<Path, Pending>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Pending> entry = iterator.next();
+            Path file = entry.getKey();
+            Pending state = entry.getValue();
+
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                iterator.remove();
+                continue;
+            }
+
+            if (!state.ready(attributes.size(), attributes.lastModifiedTime().toMillis(), now,
+                    TimeUnit.SECONDS.toNanos(stableSeconds))) {
+                continue;
+            }
+
+            try {
+                submit(file, options);
+                iterator.remove();
+                markIngested(file, attributes);
+            } catch (TooManyRequestsException e) {
+                /* 대기열이 가득 차면 Retry-After 뒤에 다시 등록 */
+                state.retryAt = now + TimeUnit.SECONDS.toNanos(e.getRetryAfter());
+            } catch (BadRequestException e) {
+                iterator.remove();
+                log.warn("Failed to ingest {}: {}", file, e.getErrorCode());
+            }
+        }
+    }
+
+    private static List<Path> paths(List<String> values) {
+        return values.stream()
+                .filter(value -> !value.isBlank())
+                .map(value -> Path.of(value.trim()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 마지막으로 본 크기와 수정 시각
+     */
+    static class Pending {
+        long size = -1;
+        long modifiedAt = -1;
+        long changedAt;
+        long retryAt;
+
+        /**
+         * 크기와 수정 시각이 stableNanos 동안 그대로이고 재시도 시각이 지났으면 등록할 수 있다.
+         */
+        boolean ready(long size, long modifiedAt, long now, long stableNanos) {
+            if (changed(size, modifiedAt, now)) {
+                return false;
+            }
+            return now - changedAt >= stableNanos && now >= retryAt;
+        }
+
+        private boolean changed(long size, long modifiedAt, long now) {
+            if (size == this.size && modifiedAt == this.modifiedAt) {
+                return false;
+            }
+            this.size = size;
+            this.modifiedAt = modifiedAt;
+            this.changedAt = now;
+            return true;
+        }
+    }
+}
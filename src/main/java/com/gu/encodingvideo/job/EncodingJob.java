@@ -0,0 +1,169 @@
+package com.gu.encodingvideo.job;
+
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 업로드 1건에 대한 인코딩 작업
+ */
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EncodingJob {
+
+    final String id;
+    final String originalFilename;
+    final EncodingOptions options;
+    final Path workDir;
+
+    /* 원본, 구간 파일 같은 중간 파일 폴더 (빠른 저장소를 쓰지 않으면 workDir) */
+    final Path scratchDir;
+    final LocalDateTime createdAt = LocalDateTime.now();
+
+    volatile JobStatus status = JobStatus.QUEUED;
+
+    /* 작업 전용 FFmpeg 프로세스 (구간 병렬 인코딩 시 여러 개) */
+    final Set<Process> processes = ConcurrentHashMap.newKeySet();
+
+    /* 중단 표시. 이후 FFmpegRunner 는 프로세스를 시작하지 않는다 */
+    volatile boolean aborted;
+
+    /* 결과 파일 (ABR 은 DASH manifest) */
+    @Setter
+    volatile Path outputFile;
+
+    /* ABR 해상도별 결과 파일 */
+    @Setter
+    volatile List<Path> renditionFiles = List.of();
+
+    /* 포스터, 스프라이트, WebVTT */
+    @Setter
+    volatile List<Path> thumbnailFiles = List.of();
+
+    /* 저해상도 미리보기. 전체 인코딩 중에도 내려받을 수 있다 */
+    @Setter
+    volatile Path previewFile;
+
+    /* LIVE: 완성되어 재생할 수 있는 세그먼트 파일명 (순서대로) */
+    final List<String> liveSegments = new CopyOnWriteArrayList<>();
+
+    /* 변환 결과 캐시 키 (원본 SHA-256 + 인코딩 옵션) */
+    @Setter
+    volatile String cacheKey;
+
+    /* FFprobe 분석 결과. 스트리밍 입력은 null */
+    @Setter
+    volatile MediaInfo mediaInfo;
+
+    /* 처리 방법 (FFprobe 분석 결과로 결정) */
+    @Setter
+    volatile EncodingPlan plan = EncodingPlan.ENCODE;
+
+    /* 목표 품질 모드에서 고른 CRF 와 예상 VMAF 점수 */
+    @Setter
+    volatile Integer crf;
+
+    @Setter
+    volatile Double predictedVmaf;
+
+    /* 최근 진행 정보 */
+    @Setter
+    volatile FFmpegProgress progress;
+
+    /* 마지막 진행 정보 전송 시각 (System.nanoTime) */
+    @Getter(AccessLevel.NONE)
+    final AtomicLong lastPublishedAt = new AtomicLong(Long.MIN_VALUE);
+
+    /* 단계별 소요 시간 */
+    final JobTimings timings = new JobTimings();
+
+    /* 작업이 종료 상태가 되면 완료된다 */
+    final CompletableFuture<EncodingJob> completion = new CompletableFuture<>();
+
+    /* FFmpeg 프로세스가 시작되면 완료된다. 시작 전에 종료된 작업은 null */
+    final CompletableFuture<Process> started = new CompletableFuture<>();
+
+    /**
+     * @param encodingRoot 작업 폴더가 생성될 상위 폴더
+     */
+    public EncodingJob(String originalFilename, EncodingOptions options, Path encodingRoot) {
+        this(UUID.randomUUID().toString(), originalFilename, options, encodingRoot);
+    }
+
+    /**
+     * 다른 노드에서 등록된 작업 (분산 모드)
+     */
+    public EncodingJob(String id, String originalFilename, EncodingOptions options, Path encodingRoot) {
+        this(id, originalFilename, options, encodingRoot, encodingRoot);
+    }
+
+    /**
+     * @param scratchRoot 작업별 중간 파일 폴더가 생성될 상위 폴더
+     */
+    public EncodingJob(String id, String originalFilename, EncodingOptions options, Path encodingRoot, Path scratchRoot) {
+        this.id = id;
+        this.originalFilename = originalFilename;
+        this.options = options;
+        this.workDir = encodingRoot.resolve(id);
+        this.scratchDir = scratchRoot.resolve(id);
+    }
+
+    public void addProcess(Process process) {
+        processes.add(process);
+        started.complete(process);
+    }
+
+    public void removeProcess(Process process) {
+        processes.remove(process);
+    }
+
+    /**
+     * 새 프로세스 시작을 막고 실행 중인 프로세스 종료 (구간 하나가 실패했거나 중단된 경우)
+     * 표시를 먼저 하므로, 이미 시작 직전인 프로세스는 FFmpegRunner 가 등록 직후 종료한다.
+     */
+    public void abortProcesses() {
+        aborted = true;
+        processes.forEach(FFmpegRunner::destroyProcessTree);
+    }
+
+    /**
+     * 진행 정보 전송 간격 확인. 전송해도 되면 전송 시각을 기록한다.
+     */
+    public boolean tryAcquirePublish(long now, long minIntervalNanos) {
+        long last = lastPublishedAt.get();
+        if (last != Long.MIN_VALUE && now - last < minIntervalNanos) {
+            return false;
+        }
+        return lastPublishedAt.compareAndSet(last, now);
+    }
+
+    /**
+     * 상태 변경. 이미 종료된 작업은 변경하지 않는다.
+     */
+    public synchronized boolean changeStatus(JobStatus next) {
+        if (status.isFinished()) {
+            return false;
+        }
+        status = next;
+        if (next.isFinished()) {
+            timings.finished();
+            started.complete(null);
+            completion.complete(this);
+        }
+        return true;
+    }
+}
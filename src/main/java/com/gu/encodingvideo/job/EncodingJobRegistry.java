@@ -0,0 +1,102 @@
+package com.gu.encodingvideo.job;
+
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 인코딩 작업 목록 (메모리)
+ * 종료된 작업은 보관 기간(retention-seconds)이 지나면 목록에서 지운다.
+ */
+@Component
+@Slf4j
+public class EncodingJobRegistry {
+
+    /* 종료된 작업 보관 기간 (초, 0: 지우지 않음) */
+    @Value("${app-config.job.retention-seconds:86400}")
+    private long retentionSeconds;
+
+    private final Map<String, EncodingJob> jobs = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        if (retentionSeconds <= 0) {
+            return;
+        }
+        long interval = Math.max(1, Math.min(60, retentionSeconds));
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> evictFinished(System.nanoTime()), interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    public void register(EncodingJob job) {
+        jobs.put(job.getId(), job);
+    }
+
+    public EncodingJob get(String jobId) {
+        EncodingJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new BadRequestException(ErrorCode.TASK_IS_NOT_EXIST);
+        }
+        return job;
+    }
+
+    public Optional<EncodingJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public Collection<EncodingJob> findAll() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public long countByStatus(JobStatus status) {
+        return jobs.values().stream().filter(job -> job.getStatus() == status).count();
+    }
+
+    public void remove(String jobId) {
+        jobs.remove(jobId);
+    }
+
+    /**
+     * 보관 기간이 지난 종료 작업 삭제
+     */
+    void evictFinished(long now) {
+        long retentionNanos = TimeUnit.SECONDS.toNanos(retentionSeconds);
+        int evicted = 0;
+        for (EncodingJob job : jobs.values()) {
+            long finishedAt = job.getTimings().finishedAt();
+            if (job.getStatus().isFinished() && finishedAt != 0 && now - finishedAt >= retentionNanos
+                    && jobs.remove(job.getId(), job)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} finished jobs", evicted);
+        }
+    }
+}
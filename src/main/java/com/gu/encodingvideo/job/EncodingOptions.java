@@ -0,0 +1,37 @@
+package com.gu.encodingvideo.job;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * 요청별 인코딩 옵션
+ */
+@Getter
+@Builder
+@Jacksonized
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class EncodingOptions {
+
+    public static final EncodingOptions DEFAULT = EncodingOptions.builder().build();
+
+    @Builder.Default
+    EncodingProfile profile = EncodingProfile.SINGLE;
+
+    @Builder.Default
+    EncodingPreset preset = EncodingPreset.BALANCED;
+
+    /* 목표 VMAF 점수. null 이면 목표 품질 모드를 사용하지 않는다 */
+    Double targetVmaf;
+
+    /* 포스터, 탐색 미리보기 스프라이트, WebVTT 를 같은 FFmpeg 실행에서 만든다 (SINGLE) */
+    boolean thumbnails;
+
+    /* 전체 인코딩 전에 저해상도 미리보기를 먼저 만든다 */
+    boolean preview;
+
+    /* 요청 클라이언트 (작업 순서의 공정 분배 기준). null 이면 익명 */
+    String clientId;
+}
@@ -0,0 +1,20 @@
+package com.gu.encodingvideo.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * FFprobe 분석 결과로 정한 처리 방법
+ */
+@Getter
+@AllArgsConstructor
+public enum EncodingPlan {
+
+    COPY("변환 생략"),
+    REMUX("WebM 으로 컨테이너만 변경"),
+    ENCODE("인코딩"),
+    //********************************
+    ;
+
+    private final String detail;
+}
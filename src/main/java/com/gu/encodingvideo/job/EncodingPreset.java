@@ -0,0 +1,22 @@
+package com.gu.encodingvideo.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * libvpx-vp9 속도/품질 프리셋 (-deadline, -cpu-used)
+ */
+@Getter
+@AllArgsConstructor
+public enum EncodingPreset {
+
+    REALTIME("실시간에 가까운 속도, 낮은 압축 효율", "realtime", 8),
+    BALANCED("속도와 품질의 균형", "good", 4),
+    ARCHIVE("느리지만 높은 압축 효율", "good", 1),
+    //********************************
+    ;
+
+    private final String detail;
+    private final String deadline;
+    private final int cpuUsed;
+}
@@ -0,0 +1,17 @@
+package com.gu.encodingvideo.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum EncodingProfile {
+
+    SINGLE("단일 1080p WebM"),
+    ABR("해상도별 WebM + DASH manifest (app-config.encoding.ladder)"),
+    LIVE("인코딩 중 재생 가능한 DASH WebM 세그먼트 + 라이브 manifest"),
+    //********************************
+    ;
+
+    private final String detail;
+}
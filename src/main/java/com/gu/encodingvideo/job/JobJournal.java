@@ -0,0 +1,199 @@
+package com.gu.encodingvideo.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 작업 기록 (로컬 디스크, 추가 전용)
+ * 작업 등록/시작/구간 완료/종료를 기록하고 매번 디스크에 동기화한다.
+ * 재시작 시 종료되지 않은 작업을 복구하고, 완료된 구간은 다시 인코딩하지 않는다.
+ */
+@Component
+@Slf4j
+public class JobJournal {
+
+    private final ObjectMapper objectMapper;
+
+    private final Path file;
+
+    private FileChannel channel;
+
+    /* 복구한 작업의 구간 진행 상황 */
+    private final Set<String> split = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Integer>> segmentsDone = new ConcurrentHashMap<>();
+
+    public JobJournal(ObjectMapper objectMapper,
+                      @Value("${app-config.journal.file:${app-config.file-upload.base-path}/journal/jobs.jsonl}") String file) {
+        this.objectMapper = objectMapper;
+        this.file = Path.of(file);
+    }
+
+    /**
+     * 기록을 읽어 종료되지 않은 작업의 SUBMITTED 기록을 등록 순서대로 돌려준다.
+     * 종료된 작업의 기록은 지워 파일을 압축한다.
+     */
+    public synchronized List<JournalRecord> recover() throws IOException {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+
+        Map<String, List<JournalRecord>> unfinished = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JournalRecord record;
+                try {
+                    record = objectMapper.readValue(line, JournalRecord.class);
+                } catch (JsonProcessingException e) {
+                    /* 기록 중 중단된 마지막 줄 */
+                    log.warn("Skipping a broken journal record: {}", e.getOriginalMessage());
+                    continue;
+                }
+
+                if (record.getType() == JournalRecord.Type.SUBMITTED) {
+                    unfinished.putIfAbsent(record.getJobId(), new ArrayList<>());
+                }
+                List<JournalRecord> records = unfinished.get(record.getJobId());
+                if (records == null) {
+                    continue;
+                }
+                switch (record.getType()) {
+                    case FINISHED:
+                        unfinished.remove(record.getJobId());
+                        break;
+                    case SPLIT:
+                        split.add(record.getJobId());
+                        records.add(record);
+                        break;
+                    case SEGMENT_DONE:
+                        segmentsDone.computeIfAbsent(record.getJobId(), key -> ConcurrentHashMap.newKeySet())
+                                .add(record.getSegment());
+                        records.add(record);
+                        break;
+                    default:
+                        records.add(record);
+                        break;
+                }
+            }
+        }
+        split.retainAll(unfinished.keySet());
+        segmentsDone.keySet().retainAll(unfinished.keySet());
+
+        compact(unfinished);
+
+        List<JournalRecord> submitted = new ArrayList<>();
+        unfinished.values().forEach(records -> submitted.add(records.get(0)));
+        return submitted;
+    }
+
+    private void compact(Map<String, List<JournalRecord>> unfinished) throws IOException {
+        closeChannel();
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>();
+        for (List<JournalRecord> records : unfinished.values()) {
+            for (JournalRecord record : records) {
+                lines.add(objectMapper.writeValueAsString(record));
+            }
+        }
+        Files.write(compacted, lines, StandardCharsets.UTF_8);
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void submitted(EncodingJob job, boolean stream) {
+        append(JournalRecord.builder()
+                .type(JournalRecord.Type.SUBMITTED)
+                .jobId(job.getId())
+                .filename(job.getOriginalFilename())
+                .options(job.getOptions())
+                .cacheKey(job.getCacheKey())
+                .stream(stream ? Boolean.TRUE : null));
+        resumed(job);
+    }
+
+    /**
+     * 복구한 작업. 종료되면 기록한다.
+     */
+    public void resumed(EncodingJob job) {
+        job.getCompletion().thenAccept(this::finished);
+    }
+
+    public void started(EncodingJob job) {
+        append(JournalRecord.builder().type(JournalRecord.Type.STARTED).jobId(job.getId()));
+    }
+
+    public void split(EncodingJob job) {
+        split.add(job.getId());
+        append(JournalRecord.builder().type(JournalRecord.Type.SPLIT).jobId(job.getId()));
+    }
+
+    public void segmentDone(EncodingJob job, int segment) {
+        segmentsDone.computeIfAbsent(job.getId(), key -> ConcurrentHashMap.newKeySet()).add(segment);
+        append(JournalRecord.builder().type(JournalRecord.Type.SEGMENT_DONE).jobId(job.getId()).segment(segment));
+    }
+
+    private void finished(EncodingJob job) {
+        split.remove(job.getId());
+        segmentsDone.remove(job.getId());
+        append(JournalRecord.builder().type(JournalRecord.Type.FINISHED).jobId(job.getId()).status(job.getStatus()));
+    }
+
+    /**
+     * 재시작 전에 구간 분할을 마친 작업인지
+     */
+    public boolean isSplit(String jobId) {
+        return split.contains(jobId);
+    }
+
+    public Set<Integer> segmentsDone(String jobId) {
+        Set<Integer> done = segmentsDone.get(jobId);
+        return done != null ? new HashSet<>(done) : Collections.emptySet();
+    }
+
+    /**
+     * 한 줄 추가 후 디스크 동기화. 기록에 실패해도 인코딩은 계속한다.
+     */
+    private synchronized void append(JournalRecord.JournalRecordBuilder builder) {
+        try {
+            if (channel == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            String line = objectMapper.writeValueAsString(builder.time(System.currentTimeMillis()).build()) + "\n";
+            channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        } catch (IOException e) {
+            log.error("Failed to write the job journal: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.gu.encodingvideo.job;
+
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 인코딩 작업 순서 결정
+ * 워커 풀(encodingExecutor)에 빈자리가 생길 때만 작업을 넘기고, 그 전까지는 여기서 대기한다.
+ * - 클라이언트별 공정 분배: 실행 중인 작업이 가장 적은 클라이언트의 작업부터
+ * - 짧은 작업 우선: 예상 비용(길이 x 해상도)이 작은 작업부터
+ * - 대기 보정(aging): 기다린 시간만큼 비용을 낮춰 긴 작업도 결국 실행된다
+ * 미리보기는 전용 워커 풀(previewExecutor)에서 등록 순서대로 바로 실행한다.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class JobScheduler {
+
+    /* 비용 단위: 1080p 1초 */
+    private static final double REFERENCE_PIXELS = 1920.0 * 1080.0;
+
+    /* 처리 속도 갱신 비율 */
+    private static final double SPEED_SMOOTHING = 0.2;
+
+    /* 클라이언트 식별자가 없는 요청 */
+    public static final String ANONYMOUS = "anonymous";
+
+    final ThreadPoolTaskExecutor encodingExecutor;
+
+    final ThreadPoolTaskExecutor previewExecutor;
+
+    /* 대기 1초마다 비용에서 빼는 값 (1080p 초) */
+    final double agingRate;
+
+    final List<Entry> pending = new ArrayList<>();
+
+    /* 실행 중인 작업 (남은 비용 계산) */
+    final Set<Entry> dispatched = new HashSet<>();
+
+    /* 워커 1개의 처리 속도 (초당 1080p 초). 완료된 작업으로 갱신한다 */
+    double speed;
+
+    /* 클라이언트별 실행 중인 작업 수 */
+    final Map<String, Integer> running = new HashMap<>();
+
+    int active;
+
+    public JobScheduler(@Qualifier("encodingExecutor") ThreadPoolTaskExecutor encodingExecutor,
+                        @Qualifier("previewExecutor") ThreadPoolTaskExecutor previewExecutor,
+                        @Value("${app-config.scheduler.aging-rate:5}") double agingRate,
+                        @Value("${app-config.admission.initial-speed:1.0}") double initialSpeed) {
+        this.encodingExecutor = encodingExecutor;
+        this.previewExecutor = previewExecutor;
+        this.agingRate = agingRate;
+        this.speed = initialSpeed;
+    }
+
+    /**
+     * 작업 등록. 빈자리가 있으면 바로 실행한다.
+     */
+    public synchronized void submit(EncodingJob job, Runnable task) {
+        pending.add(new Entry(job, clientOf(job), cost(job), System.nanoTime(), task));
+        dispatch();
+    }
+
+    /**
+     * 미리보기 등록. 인코딩 대기열을 거치지 않는다.
+     */
+    public void submitPreview(Runnable task) {
+        previewExecutor.execute(task);
+    }
+
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * 현재 대기열 상태 (입장 제어)
+     */
+    public synchronized Backlog backlog() {
+        double pendingCost = pending.stream().mapToDouble(Entry::getCost).sum();
+        double runningCost = dispatched.stream().mapToDouble(Entry::remainingCost).sum();
+        return new Backlog(pending.size(), pendingCost, runningCost, encodingExecutor.getMaxPoolSize() - active,
+                encodingExecutor.getMaxPoolSize(), speed);
+    }
+
+    private void dispatch() {
+        int capacity = encodingExecutor.getMaxPoolSize();
+        while (active < capacity && !pending.isEmpty()) {
+            Entry next = select(pending, running, System.nanoTime(), agingRate);
+            pending.remove(next);
+            dispatched.add(next);
+            active++;
+            running.merge(next.getClientId(), 1, Integer::sum);
+
+            encodingExecutor.execute(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    next.getTask().run();
+                } finally {
+                    finished(next, System.nanoTime() - startedAt);
+                }
+            });
+        }
+    }
+
+    private synchronized void finished(Entry entry, long elapsedNanos) {
+        dispatched.remove(entry);
+        active--;
+        /* 실제로 변환한 작업만 처리 속도에 반영 (지수 이동 평균) */
+        double seconds = elapsedNanos / 1e9;
+        EncodingJob job = entry.getJob();
+        if (job.getStatus() == JobStatus.COMPLETED && job.getPlan() == EncodingPlan.ENCODE
+                && entry.getCost() > 0 && seconds >= 1) {
+            speed = speed * (1 - SPEED_SMOOTHING) + entry.getCost() / seconds * SPEED_SMOOTHING;
+        }
+        running.computeIfPresent(entry.getClientId(), (client, count) -> count > 1 ? count - 1 : null);
+        dispatch();
+    }
+
+    /**
+     * 실행 중인 작업이 가장 적은 클라이언트들 중 보정한 비용이 가장 작은 작업
+     */
+    static Entry select(List<Entry> pending, Map<String, Integer> running, long now, double agingRate) {
+        int fewest = pending.stream()
+                .mapToInt(entry -> running.getOrDefault(entry.getClientId(), 0))
+                .min()
+                .orElse(0);
+
+        return pending.stream()
+                .filter(entry -> running.getOrDefault(entry.getClientId(), 0) == fewest)
+                .min(Comparator.comparingDouble((Entry entry) -> entry.score(now, agingRate))
+                        .thenComparingLong(Entry::getQueuedAt))
+                .orElseThrow();
+    }
+
+    /**
+     * 예상 비용 = 길이(초) x 화소 수 / 1080p 화소 수
+     * 분석 정보가 없는 스트리밍 작업은 업로드 연결을 붙잡고 있으므로 0 (가장 먼저)
+     */
+    public static double cost(EncodingJob job) {
+        MediaInfo mediaInfo = job.getMediaInfo();
+        if (mediaInfo == null) {
+            return 0;
+        }
+        double pixels = mediaInfo.getWidth() > 0 && mediaInfo.getHeight() > 0
+                ? (double) mediaInfo.getWidth() * mediaInfo.getHeight()
+                : REFERENCE_PIXELS;
+        return Math.max(0, mediaInfo.getDuration()) * pixels / REFERENCE_PIXELS;
+    }
+
+    private static String clientOf(EncodingJob job) {
+        String clientId = job.getOptions().getClientId();
+        return clientId == null || clientId.isBlank() ? ANONYMOUS : clientId;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    static class Entry {
+
+        EncodingJob job;
+        String clientId;
+        double cost;
+        long queuedAt;
+        Runnable task;
+
+        double score(long now, double agingRate) {
+            return cost - agingRate * TimeUnit.NANOSECONDS.toMillis(now - queuedAt) / 1000.0;
+        }
+
+        /**
+         * 진행 정보 기준 남은 비용
+         */
+        double remainingCost() {
+            MediaInfo mediaInfo = job.getMediaInfo();
+            if (job.getProgress() == null || mediaInfo == null || mediaInfo.getDuration() <= 0) {
+                return cost;
+            }
+            double done = Math.min(1, Math.max(0, job.getProgress().getOutTime() / mediaInfo.getDuration()));
+            return cost * (1 - done);
+        }
+    }
+
+    /**
+     * 대기열 상태
+     */
+    @Getter
+    @RequiredArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class Backlog {
+
+        int pending;
+
+        /* 대기 중인 작업 비용 합 (1080p 초) */
+        double pendingCost;
+
+        /* 실행 중인 작업의 남은 비용 합 */
+        double runningCost;
+
+        /* 빈 워커 수 */
+        int idleWorkers;
+
+        int workers;
+
+        /* 워커 1개의 처리 속도 (초당 1080p 초) */
+        double speed;
+    }
+}
@@ -0,0 +1,26 @@
+package com.gu.encodingvideo.job;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum JobStatus {
+
+    QUEUED("대기 중"),
+    RUNNING("인코딩 중"),
+    COMPLETED("완료"),
+    FAILED("실패"),
+    CANCELLED("취소됨"),
+    //********************************
+    ;
+
+    private final String detail;
+
+    /**
+     * 더 이상 상태가 바뀌지 않는 종료 상태 여부
+     */
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,99 @@
+package com.gu.encodingvideo.job;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 작업 단계별 소요 시간 (ms). 아직 지나지 않은 단계는 null
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class JobTimings {
+
+    /* 업로드 (분할 업로드, 스트리밍) */
+    @Getter
+    @Setter
+    volatile Long uploadMillis;
+
+    /* 워커 풀 대기 */
+    @Getter
+    volatile Long queueWaitMillis;
+
+    /* 목표 품질 모드의 CRF 선택 */
+    @Getter
+    @Setter
+    volatile Long analysisMillis;
+
+    /* 변환 (CRF 선택 제외) */
+    @Getter
+    @Setter
+    volatile Long encodeMillis;
+
+    /* 대기열 등록부터 미리보기 완료까지 */
+    @Getter
+    volatile Long previewMillis;
+
+    /* 실행 시작부터 종료까지 */
+    @Getter
+    volatile Long runMillis;
+
+    /* FFmpeg 프로세스 실행 시간 합. 구간 병렬 인코딩은 encodeMillis 보다 클 수 있다 */
+    final AtomicLong ffmpegMillis = new AtomicLong();
+
+    /* 대기열 등록, 실행 시작 시각 (System.nanoTime) */
+    volatile long queuedAt;
+
+    volatile long startedAt;
+
+    /* 종료 시각 (System.nanoTime, 0: 진행 중). 보관 기간이 지나면 작업 목록에서 지운다 */
+    volatile long finishedAt;
+
+    public void queued() {
+        queuedAt = System.nanoTime();
+    }
+
+    /**
+     * 실행 시작
+     *
+     * @return 대기 시간 (ms). 이 노드에서 대기열에 등록하지 않은 작업은 null
+     */
+    public Long started() {
+        startedAt = System.nanoTime();
+        queueWaitMillis = queuedAt > 0 ? TimeUnit.NANOSECONDS.toMillis(startedAt - queuedAt) : null;
+        return queueWaitMillis;
+    }
+
+    /**
+     * @return 대기열 등록부터 미리보기 완료까지 (ms)
+     */
+    public long previewReady() {
+        previewMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt);
+        return previewMillis;
+    }
+
+    public void finished() {
+        finishedAt = System.nanoTime();
+        if (startedAt > 0) {
+            runMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * @return 종료 시각 (System.nanoTime). 진행 중이면 0
+     */
+    long finishedAt() {
+        return finishedAt;
+    }
+
+    public void addFFmpegMillis(long millis) {
+        ffmpegMillis.addAndGet(millis);
+    }
+
+    public long getFfmpegMillis() {
+        return ffmpegMillis.get();
+    }
+}
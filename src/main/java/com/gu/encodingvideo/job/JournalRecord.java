@@ -0,0 +1,45 @@
+package com.gu.encodingvideo.job;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * 작업 기록 한 줄 (JSON)
+ */
+@Getter
+@Builder
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JournalRecord {
+
+    public enum Type {
+        SUBMITTED,
+        STARTED,
+        /* 구간 분할 완료 */
+        SPLIT,
+        SEGMENT_DONE,
+        FINISHED
+    }
+
+    Type type;
+    String jobId;
+    long time;
+
+    /* SUBMITTED */
+    String filename;
+    EncodingOptions options;
+    String cacheKey;
+    /* 표준 입력으로 받은 작업은 재시작 후 이어서 할 수 없다 */
+    Boolean stream;
+
+    /* SEGMENT_DONE */
+    Integer segment;
+
+    /* FINISHED */
+    JobStatus status;
+}
@@ -0,0 +1,171 @@
+package com.gu.encodingvideo.metrics;
+
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import com.gu.encodingvideo.job.EncodingJobRegistry;
+import com.gu.encodingvideo.job.JobStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 인코딩 파이프라인 지표 (Micrometer, /actuator/prometheus)
+ * 워커 풀(encodingExecutor, segmentExecutor) 포화도는 Spring Boot 가 executor.* 로 기록한다.
+ */
+@Component
+public class EncodingMetrics {
+
+    private final MeterRegistry registry;
+
+    private final DistributionSummary uploadBytes;
+
+    private final DistributionSummary uploadThroughput;
+
+    private final Timer uploadDuration;
+
+    private final Timer queueWait;
+
+    private final Timer analysis;
+
+    private final Timer previewReady;
+
+    private final DistributionSummary speed;
+
+    private final DistributionSummary fps;
+
+    /* 실행 중인 FFmpeg 프로세스 수 */
+    private final AtomicInteger activeProcesses = new AtomicInteger();
+
+    public EncodingMetrics(MeterRegistry registry, EncodingJobRegistry jobRegistry) {
+        this.registry = registry;
+        this.uploadBytes = DistributionSummary.builder("encoding.upload.size")
+                .description("업로드 크기")
+                .baseUnit("bytes")
+                .register(registry);
+        this.uploadThroughput = DistributionSummary.builder("encoding.upload.throughput")
+                .description("업로드 속도")
+                .baseUnit("bytes.per.second")
+                .register(registry);
+        this.uploadDuration = Timer.builder("encoding.upload.duration")
+                .description("업로드 소요 시간")
+                .register(registry);
+        this.queueWait = Timer.builder("encoding.queue.wait")
+                .description("워커 풀 대기 시간")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.analysis = Timer.builder("encoding.analysis.duration")
+                .description("목표 품질 모드 CRF 선택 시간")
+                .register(registry);
+        this.previewReady = Timer.builder("encoding.preview.ready")
+                .description("대기열 등록부터 미리보기 완료까지 (첫 재생 가능 시간)")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.speed = DistributionSummary.builder("encoding.ffmpeg.speed")
+                .description("FFmpeg 처리 속도 (재생 시간 대비 배속, speed=)")
+                .register(registry);
+        this.fps = DistributionSummary.builder("encoding.ffmpeg.fps")
+                .description("FFmpeg 출력 fps")
+                .register(registry);
+
+        Gauge.builder("encoding.ffmpeg.active", activeProcesses, AtomicInteger::get)
+                .description("실행 중인 FFmpeg 프로세스 수")
+                .register(registry);
+        for (JobStatus status : JobStatus.values()) {
+            Gauge.builder("encoding.jobs", jobRegistry, jobs -> jobs.countByStatus(status))
+                    .description("상태별 작업 수")
+                    .tag("status", status.name())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 업로드 1건 (분할 업로드 조각, 스트리밍 본문)
+     *
+     * @param type chunk, stream
+     */
+    public void recordUpload(String type, long bytes, long nanos) {
+        uploadBytes.record(bytes);
+        uploadDuration.record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos > 0) {
+            uploadThroughput.record(bytes * 1e9 / nanos);
+        }
+        registry.counter("encoding.upload.bytes", "type", type).increment(bytes);
+    }
+
+    public void recordQueueWait(long millis) {
+        queueWait.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordAnalysis(long millis) {
+        analysis.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordPreview(long millis) {
+        previewReady.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 입장 제어 거절
+     *
+     * @param stage upload (본문 수신 전), probe (분석 후)
+     */
+    public void admissionRejected(String stage) {
+        registry.counter("encoding.admission.rejected", "stage", stage).increment();
+    }
+
+    public void processStarted() {
+        activeProcesses.incrementAndGet();
+    }
+
+    /**
+     * FFmpeg 프로세스 종료
+     *
+     * @param last 마지막 진행 정보 (speed, fps 는 프로세스 전체 평균). 없으면 null
+     */
+    public void processFinished(int exitCode, long nanos, FFmpegProgress last) {
+        activeProcesses.decrementAndGet();
+        String result = exitCode == 0 ? "success" : "failure";
+        registry.timer("encoding.ffmpeg.duration", "result", result).record(nanos, TimeUnit.NANOSECONDS);
+        registry.counter("encoding.ffmpeg.exit", "code", String.valueOf(exitCode)).increment();
+        if (last != null && exitCode == 0) {
+            if (last.getSpeed() > 0) {
+                speed.record(last.getSpeed());
+            }
+            if (last.getFps() > 0) {
+                fps.record(last.getFps());
+            }
+        }
+    }
+
+    /**
+     * 감시(ProcessSupervisor)로 종료된 FFmpeg 프로세스
+     *
+     * @param reason stall, wall-clock
+     */
+    public void processKilled(String reason) {
+        registry.counter("encoding.ffmpeg.killed", "reason", reason).increment();
+    }
+
+    /**
+     * WebSocket(STOMP) 전송
+     *
+     * @param type duration, time, progress, renditions, segments
+     */
+    public void messageSent(String type) {
+        registry.counter("encoding.stomp.messages", "type", type).increment();
+    }
+
+    /**
+     * 작업 종료
+     */
+    public void jobFinished(JobStatus status, Long runMillis) {
+        if (runMillis != null) {
+            registry.timer("encoding.job.duration", "status", status.name()).record(runMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
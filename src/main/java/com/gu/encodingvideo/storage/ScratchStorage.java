@@ -0,0 +1,303 @@
+package com.gu.encodingvideo.storage;
+
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 작업 임시 저장소
+ * 원본, 업로드 조각, 구간 파일 같은 중간 파일은 빠른 저장소(tmpfs, NVMe)에 두고 결과 파일만 작업 폴더(encoding-path)에 쓴다.
+ * 업로드 전에 남은 공간과 사용량 한도를 확인하고, 다 쓴 파일은 초당 삭제량을 제한하여 백그라운드에서 지운다.
+ */
+@Component
+@Slf4j
+public class ScratchStorage {
+
+    private final Path bulkRoot;
+
+    /* 빠른 저장소를 쓰지 않으면 bulkRoot 와 같다 */
+    private final Path scratchRoot;
+
+    private final long minFreeBytes;
+
+    /* 원본 파일 사용량 한도 (0: 제한 없음) */
+    private final long quotaBytes;
+
+    /* 초당 삭제량 (0: 제한 없음) */
+    private final long deleteBytesPerSecond;
+
+    /* 작업(또는 업로드 세션)별 예약한 원본 크기 */
+    private final Map<String, Long> reservations = new ConcurrentHashMap<>();
+
+    private final AtomicLong reserved = new AtomicLong();
+
+    private final BlockingQueue<Path> deletions = new LinkedBlockingQueue<>();
+
+    private Thread cleaner;
+
+    /* 이 시각 이후에 만든 폴더는 이번 실행의 것이므로 sweep 에서 제외 */
+    private final long startedAt = System.currentTimeMillis();
+
+    public ScratchStorage(@Value("${app-config.file-upload.base-path}") String basePath,
+                          @Value("${app-config.file-upload.encoding-path}") String encodingPath,
+                          @Value("${app-config.storage.fast-path:}") String fastPath,
+                          @Value("${app-config.storage.min-free-bytes:0}") long minFreeBytes,
+                          @Value("${app-config.storage.quota-bytes:0}") long quotaBytes,
+                          @Value("${app-config.storage.delete-bytes-per-second:0}") long deleteBytesPerSecond,
+                          @Value("${app-config.distributed.enabled:false}") boolean distributed) {
+        this.bulkRoot = Path.of(basePath, encodingPath);
+        /* 분산 모드는 다른 노드가 원본을 읽어야 하므로 공유 저장소만 사용 */
+        if (!fastPath.isBlank() && distributed) {
+            log.warn("app-config.storage.fast-path is ignored in distributed mode");
+        }
+        this.scratchRoot = fastPath.isBlank() || distributed ? bulkRoot : Path.of(fastPath);
+        this.minFreeBytes = minFreeBytes;
+        this.quotaBytes = quotaBytes;
+        this.deleteBytesPerSecond = deleteBytesPerSecond;
+    }
+
+    @PostConstruct
+    public void start() {
+        cleaner = new Thread(this::cleanLoop, "scratch-cleaner");
+        cleaner.setDaemon(true);
+        cleaner.start();
+    }
+
+    /**
+     * 남은 삭제는 속도 제한 없이 마친다. 그래도 남은 파일은 다음 실행의 {@link #sweep(Set)} 에서 지운다.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (cleaner != null) {
+            cleaner.interrupt();
+            cleaner.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        List<Path> remaining = new ArrayList<>();
+        deletions.drainTo(remaining);
+        for (Path path : remaining) {
+            delete(path, false);
+        }
+    }
+
+    /**
+     * 재시작 후 이전 실행에서 지우지 못한 중간 파일 정리
+     * 업로드 세션은 메모리에만 있으므로 업로드 폴더는 비운다. 이어서 할 작업(keep)이 아니면
+     * 빠른 저장소의 작업 폴더와 작업 폴더의 구간, 샘플 폴더를 지운다. 결과 파일은 남긴다.
+     *
+     * @param keep 재시작 후 이어서 할 작업 id
+     */
+    public void sweep(Set<String> keep) {
+        deleteChildren(uploadDir(), path -> true);
+        if (isFastTier()) {
+            deleteChildren(scratchRoot, path -> isJobDir(path) && !keep.contains(path.getFileName().toString()));
+        }
+        deleteChildren(bulkRoot, path -> {
+            if (isJobDir(path) && !keep.contains(path.getFileName().toString())) {
+                deleteLater(path.resolve("segments"));
+                deleteLater(path.resolve("quality"));
+            }
+            return false;
+        });
+    }
+
+    private void deleteChildren(Path dir, Predicate<Path> filter) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> children = Files.list(dir)) {
+            children.filter(this::isFromPreviousRun).filter(filter).forEach(this::deleteLater);
+        } catch (IOException e) {
+            log.error("Failed to list {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private boolean isFromPreviousRun(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis() < startedAt;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /* 작업 폴더 이름은 작업 id (UUID) */
+    private static boolean isJobDir(Path path) {
+        if (!Files.isDirectory(path)) {
+            return false;
+        }
+        try {
+            UUID.fromString(path.getFileName().toString());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public Path getBulkRoot() {
+        return bulkRoot;
+    }
+
+    public Path getScratchRoot() {
+        return scratchRoot;
+    }
+
+    public boolean isFastTier() {
+        return !scratchRoot.equals(bulkRoot);
+    }
+
+    public Path uploadDir() {
+        return scratchRoot.resolve("uploads");
+    }
+
+    public long getReserved() {
+        return reserved.get();
+    }
+
+    public int getPendingDeletes() {
+        return deletions.size();
+    }
+
+    /**
+     * 남은 공간 확인. 받을 크기를 쓰고도 min-free-bytes 이상 남아야 한다.
+     *
+     * @param bytes 받을 크기 (모르면 0)
+     */
+    public void checkFreeSpace(long bytes) {
+        long usable;
+        try {
+            Files.createDirectories(scratchRoot);
+            usable = Files.getFileStore(scratchRoot).getUsableSpace();
+        } catch (IOException e) {
+            log.error("Failed to read free space of {}: {}", scratchRoot, e.getMessage());
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        }
+        if (usable - bytes < minFreeBytes) {
+            log.warn("Not enough scratch space: usable {} bytes, requested {} bytes", usable, bytes);
+            throw new BadRequestException(ErrorCode.STORAGE_FULL);
+        }
+    }
+
+    /**
+     * 사용량 한도 안에서 원본 크기 예약
+     */
+    public void reserve(String id, long bytes) {
+        if (quotaBytes > 0) {
+            long current;
+            do {
+                current = reserved.get();
+                if (current + bytes > quotaBytes) {
+                    throw new BadRequestException(ErrorCode.STORAGE_FULL);
+                }
+            } while (!reserved.compareAndSet(current, current + bytes));
+        } else {
+            reserved.addAndGet(bytes);
+        }
+        Long previous = reservations.put(id, bytes);
+        if (previous != null) {
+            reserved.addAndGet(-previous);
+        }
+    }
+
+    /**
+     * 한도를 확인하지 않고 예약 (재시작 후 복구한 작업)
+     */
+    public void track(String id, long bytes) {
+        reserved.addAndGet(bytes);
+        Long previous = reservations.put(id, bytes);
+        if (previous != null) {
+            reserved.addAndGet(-previous);
+        }
+    }
+
+    public void release(String id) {
+        Long bytes = reservations.remove(id);
+        if (bytes != null) {
+            reserved.addAndGet(-bytes);
+        }
+    }
+
+    /**
+     * 파일 또는 폴더를 백그라운드에서 삭제
+     */
+    public void deleteLater(Path path) {
+        if (path != null) {
+            deletions.add(path);
+        }
+    }
+
+    private void cleanLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Path path = deletions.take();
+                try {
+                    delete(path, true);
+                } catch (InterruptedException e) {
+                    /* 종료 시 남은 부분은 shutdown() 에서 지운다 */
+                    deletions.add(path);
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void delete(Path path) throws InterruptedException {
+        delete(path, true);
+    }
+
+    /**
+     * 하위 파일부터 지운다. 지운 크기만큼 쉬어서 초당 삭제량을 맞춘다.
+     */
+    private void delete(Path path, boolean rateLimited) throws InterruptedException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(path)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("Failed to list {}: {}", path, e.getMessage());
+            return;
+        }
+
+        for (Path file : paths) {
+            long size = 0;
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    size = attributes.size();
+                }
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.error("Failed to delete {}: {}", file, e.getMessage());
+                continue;
+            }
+            if (rateLimited && deleteBytesPerSecond > 0 && size > 0) {
+                TimeUnit.NANOSECONDS.sleep((long) ((double) size / deleteBytesPerSecond * TimeUnit.SECONDS.toNanos(1)));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.gu.encodingvideo.upload;
+
+import com.gu.encodingvideo.dto.ApiResponse;
+import com.gu.encodingvideo.dto.ApiResponseCode;
+import com.gu.encodingvideo.dto.EncodingRequest;
+import com.gu.encodingvideo.dto.JobResponse;
+import com.gu.encodingvideo.dto.UploadSessionRequest;
+import com.gu.encodingvideo.dto.UploadSessionResponse;
+import com.gu.encodingvideo.job.EncodingJob;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springdoc.api.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j(topic = "ChunkUploadController")
+@RequestMapping("/api/v1/uploads")
+@Tag(name = "Chunk Upload API", description = "대용량 비디오 분할 업로드 API")
+public class ChunkUploadController {
+
+    private final ChunkUploadService chunkUploadService;
+
+    @PostMapping
+    @Operation(summary = "업로드 세션 생성", description = "파일 크기와 조각 크기로 분할 업로드 세션 생성")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> createSession(@RequestBody UploadSessionRequest request) {
+        UploadSession session = chunkUploadService.create(request.getFilename(), request.getSize(), request.getChunkSize());
+        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, UploadSessionResponse.from(session));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "업로드 세션 상태", description = "아직 도착하지 않은 조각 목록 조회")
+    public ResponseEntity<ApiResponse<UploadSessionResponse>> getSession(@PathVariable("id") String uploadId) {
+        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK, UploadSessionResponse.from(chunkUploadService.get(uploadId)));
+    }
+
+    @PutMapping(value = "/{id}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "조각 업로드", description = "index 번째 조각 업로드. X-Chunk-Sha256 헤더의 SHA-256 으로 검증. 여러 조각을 병렬로 보낼 수 있음")
+    public ResponseEntity<ApiResponse<Void>> putChunk(@PathVariable("id") String uploadId,
+            @PathVariable("index") int index,
+            @RequestHeader("X-Chunk-Sha256") String checksum,
+            HttpServletRequest request) throws IOException {
+        chunkUploadService.writeChunk(uploadId, index, checksum, request.getInputStream());
+        return ApiResponse.toResponseEntity(ApiResponseCode.UPLOAD_OK);
+    }
+
+    @PostMapping("/{id}/commit")
+    @Operation(summary = "업로드 완료", description = "모든 조각이 도착한 파일을 인코딩 작업으로 등록")
+    public ResponseEntity<ApiResponse<JobResponse>> commit(@PathVariable("id") String uploadId,
+            @ParameterObject EncodingRequest options,
+            HttpServletRequest request) {
+        EncodingJob job = chunkUploadService.commit(uploadId, options.toOptions(request));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/v1/jobs/{id}")
+                .buildAndExpand(job.getId())
+                .toUri());
+
+        return ApiResponse.toResponseEntity(ApiResponseCode.ENCODING_ACCEPTED, JobResponse.from(job), headers);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "업로드 취소", description = "업로드 세션과 임시 파일 삭제")
+    public ResponseEntity<ApiResponse<Void>> abort(@PathVariable("id") String uploadId) {
+        chunkUploadService.abort(uploadId);
+        return ApiResponse.toResponseEntity(ApiResponseCode.RESPONSE_OK);
+    }
+}
@@ -0,0 +1,261 @@
+package com.gu.encodingvideo.upload;
+
+import com.gu.encodingvideo.EncodingService;
+import com.gu.encodingvideo.admission.AdmissionControl;
+import com.gu.encodingvideo.cache.ContentHash;
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.exception.ErrorCode;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.metrics.EncodingMetrics;
+import com.gu.encodingvideo.storage.ScratchStorage;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class ChunkUploadService {
+
+    @Value("${app-config.file-upload.max-size}")
+    private long maxSize;
+
+    @Value("${app-config.file-upload.max-chunk-size:67108864}")
+    private long maxChunkSize;
+
+    @Value("${app-config.file-upload.max-chunks:10000}")
+    private long maxChunks;
+
+    /* 이 시간(초) 동안 조각이 오지 않은 세션은 취소 */
+    @Value("${app-config.file-upload.session-idle-seconds:3600}")
+    private long sessionIdleSeconds;
+
+    private final EncodingService encodingService;
+
+    private final EncodingMetrics metrics;
+
+    private final ScratchStorage storage;
+
+    private final AdmissionControl admissionControl;
+
+    /* 진행 중인 업로드 세션 */
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        long interval = Math.max(1, Math.min(60, sessionIdleSeconds));
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> expireIdle(System.nanoTime()), interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * 업로드 세션 생성
+     */
+    public UploadSession create(String originalFilename, long size, long chunkSize) {
+        encodingService.validateFilename(originalFilename);
+
+        if (size <= 0 || chunkSize <= 0 || chunkSize > maxChunkSize) {
+            throw new BadRequestException(ErrorCode.INVALID_CHUNK);
+        }
+        if (size > maxSize) {
+            throw new BadRequestException(ErrorCode.EXCEED_MAX_UPLOAD_SIZE);
+        }
+        /* 조각 수만큼 수신 표시(BitSet)를 만들므로 너무 작은 조각은 받지 않는다 */
+        if (UploadSession.chunkCount(size, chunkSize) > Math.min(maxChunks, Integer.MAX_VALUE)) {
+            throw new BadRequestException(ErrorCode.INVALID_OPTION);
+        }
+        admissionControl.checkUpload(size);
+        storage.checkFreeSpace(size);
+
+        try {
+            Path uploadDir = Files.createDirectories(storage.uploadDir());
+            UploadSession session = new UploadSession(originalFilename, size, chunkSize, uploadDir);
+            try {
+                storage.reserve(session.getId(), size);
+            } catch (BadRequestException e) {
+                closeQuietly(session);
+                Files.deleteIfExists(session.getFile());
+                throw e;
+            }
+            sessions.put(session.getId(), session);
+            return session;
+        } catch (IOException e) {
+            log.error("Failed to create the upload session: {}", e.getMessage());
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        }
+    }
+
+    public UploadSession get(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw new BadRequestException(ErrorCode.UPLOAD_IS_NOT_EXIST);
+        }
+        return session;
+    }
+
+    /**
+     * 조각 기록
+     * 본문을 읽으면서 SHA-256 을 계산하고 파일의 해당 위치에 바로 기록한다.
+     *
+     * @param checksum 조각의 SHA-256 (hex)
+     */
+    public UploadSession writeChunk(String uploadId, int index, String checksum, InputStream body) {
+        UploadSession session = get(uploadId);
+
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new BadRequestException(ErrorCode.INVALID_CHUNK);
+        }
+
+        session.touch();
+        long position = session.offsetOf(index);
+        long expected = session.lengthOf(index);
+        long written = 0;
+        long startedAt = System.nanoTime();
+
+        MessageDigest digest = sha256();
+        /* 조각이 블록 경계에서 시작하면 도착 순서와 관계없이 블록 해시도 계산 (캐시 키, 원본을 다시 읽지 않는다) */
+        ContentHash contentHash = session.isHashable() ? new ContentHash() : null;
+        try (DigestInputStream input = new DigestInputStream(body, digest)) {
+            byte[] buffer = new byte[65536];
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) != -1) {
+                if (written + bytesRead > expected) {
+                    throw new BadRequestException(ErrorCode.INVALID_CHUNK);
+                }
+                if (contentHash != null) {
+                    contentHash.update(buffer, 0, bytesRead);
+                }
+                ByteBuffer src = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (src.hasRemaining()) {
+                    written += session.channel().write(src, position + written);
+                }
+            }
+        } catch (IOException e) {
+            log.error("[{}] Failed to write chunk {}: {}", uploadId, index, e.getMessage());
+            throw new BadRequestException(ErrorCode.UPLOAD_FAILED);
+        }
+
+        if (written != expected) {
+            throw new BadRequestException(ErrorCode.INVALID_CHUNK);
+        }
+        if (checksum == null || !HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(checksum)) {
+            throw new BadRequestException(ErrorCode.CHECKSUM_MISMATCH);
+        }
+
+        metrics.recordUpload("chunk", written, System.nanoTime() - startedAt);
+        if (contentHash != null) {
+            session.hashed(index, contentHash.blockDigests());
+        }
+        session.markReceived(index);
+        session.touch();
+        return session;
+    }
+
+    /**
+     * 업로드 완료
+     * 모든 조각이 도착한 파일을 기존 인코딩 경로로 넘긴다.
+     */
+    public EncodingJob commit(String uploadId, EncodingOptions options) {
+        UploadSession session = get(uploadId);
+
+        if (!session.isComplete()) {
+            throw new BadRequestException(ErrorCode.UPLOAD_IS_NOT_COMPLETE);
+        }
+
+        if (!sessions.remove(uploadId, session)) {
+            throw new BadRequestException(ErrorCode.UPLOAD_IS_NOT_EXIST);
+        }
+        closeQuietly(session);
+        /* 작업 등록 시 작업 id 로 다시 예약한다 */
+        storage.release(uploadId);
+
+        EncodingJob job = encodingService.submit(session.getOriginalFilename(), session.getFile(), options,
+                session.getContentHash());
+        job.getTimings().setUploadMillis(Duration.between(session.getCreatedAt(), LocalDateTime.now()).toMillis());
+        return job;
+    }
+
+    /**
+     * 업로드 취소
+     */
+    public void abort(String uploadId) {
+        UploadSession session = sessions.remove(uploadId);
+        if (session == null) {
+            throw new BadRequestException(ErrorCode.UPLOAD_IS_NOT_EXIST);
+        }
+        closeQuietly(session);
+        storage.release(uploadId);
+        storage.deleteLater(session.getFile());
+    }
+
+    /**
+     * 오래 조각이 오지 않은 세션 취소 (예약과 파일 정리)
+     */
+    void expireIdle(long now) {
+        long idleNanos = TimeUnit.SECONDS.toNanos(sessionIdleSeconds);
+        for (UploadSession session : sessions.values()) {
+            if (!session.isIdle(now, idleNanos)) {
+                continue;
+            }
+            try {
+                abort(session.getId());
+                log.info("[{}] Upload session expired", session.getId());
+            } catch (BadRequestException e) {
+                /* 그 사이 완료 또는 취소됨 */
+            }
+        }
+    }
+
+    private void closeQuietly(UploadSession session) {
+        try {
+            session.close();
+        } catch (IOException e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.gu.encodingvideo.upload;
+
+import com.gu.encodingvideo.cache.ContentHash;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 분할 업로드 세션
+ * 전체 크기만큼 미리 할당한 파일에 조각(chunk)을 위치 기준으로 기록한다.
+ */
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UploadSession {
+
+    String id = UUID.randomUUID().toString();
+    String originalFilename;
+    long size;
+    long chunkSize;
+    int totalChunks;
+    Path file;
+    LocalDateTime createdAt = LocalDateTime.now();
+
+    @Getter(AccessLevel.NONE)
+    BitSet received;
+
+    @Getter(AccessLevel.NONE)
+    FileChannel channel;
+
+    /* 조각별 블록 해시 (캐시 키). 조각 크기가 블록 크기의 배수일 때만 계산한다. received 로 보호 */
+    @Getter(AccessLevel.NONE)
+    byte[][] chunkDigests;
+
+    /* 마지막으로 조각을 받은 시각 (System.nanoTime) */
+    @Getter(AccessLevel.NONE)
+    @NonFinal
+    volatile long lastActivity = System.nanoTime();
+
+    public UploadSession(String originalFilename, long size, long chunkSize, Path uploadDir) throws IOException {
+        this.originalFilename = originalFilename;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.totalChunks = Math.toIntExact(chunkCount(size, chunkSize));
+        this.received = new BitSet(totalChunks);
+        this.chunkDigests = chunkSize % ContentHash.BLOCK_SIZE == 0 ? new byte[totalChunks][] : null;
+        this.file = uploadDir.resolve(id + ".part");
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        /* 마지막 바이트를 기록하여 전체 크기 미리 할당 */
+        channel.write(ByteBuffer.allocate(1), size - 1);
+    }
+
+    public static long chunkCount(long size, long chunkSize) {
+        return (size - 1) / chunkSize + 1;
+    }
+
+    /**
+     * 조각이 기록될 파일 내 위치
+     */
+    public long offsetOf(int index) {
+        return index * chunkSize;
+    }
+
+    /**
+     * 조각의 실제 길이 (마지막 조각은 짧을 수 있다)
+     */
+    public long lengthOf(int index) {
+        return Math.min(chunkSize, size - offsetOf(index));
+    }
+
+    /**
+     * 위치 기준 기록. 서로 다른 조각은 동시에 기록할 수 있다.
+     */
+    public FileChannel channel() {
+        return channel;
+    }
+
+    public void markReceived(int index) {
+        synchronized (received) {
+            received.set(index);
+        }
+    }
+
+    /**
+     * 조각마다 원본 해시를 계산할 수 있는지 (조각이 블록 경계에서 시작)
+     */
+    public boolean isHashable() {
+        return chunkDigests != null;
+    }
+
+    /**
+     * 기록에 성공한 조각의 블록 해시. 다시 받은 조각은 덮어쓴다.
+     */
+    public void hashed(int index, byte[] blockDigests) {
+        synchronized (received) {
+            chunkDigests[index] = blockDigests;
+        }
+    }
+
+    /**
+     * 모든 조각의 블록 해시가 있으면 원본 해시 ({@link ContentHash}), 아니면 null
+     */
+    public String getContentHash() {
+        synchronized (received) {
+            if (chunkDigests == null || Arrays.stream(chunkDigests).anyMatch(Objects::isNull)) {
+                return null;
+            }
+            return ContentHash.combine(Arrays.asList(chunkDigests));
+        }
+    }
+
+    public void touch() {
+        lastActivity = System.nanoTime();
+    }
+
+    public boolean isIdle(long now, long idleNanos) {
+        return now - lastActivity > idleNanos;
+    }
+
+    public List<Integer> getMissingChunks() {
+        List<Integer> missing = new ArrayList<>();
+        synchronized (received) {
+            for (int i = received.nextClearBit(0); i < totalChunks; i = received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    public boolean isComplete() {
+        synchronized (received) {
+            return received.cardinality() == totalChunks;
+        }
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CrfSelectorTest {
+
+	@TempDir
+	Path dir;
+
+	private final TreeMap<Integer, Double> scores = new TreeMap<>(Map.of(24, 97.0, 31, 94.0, 38, 90.0, 45, 84.0));
+
+	@Test
+	void interpolatesHighestCrfMeetingTarget() {
+		CrfSelector.Choice choice = CrfSelector.fit(scores, 92.0);
+
+		assertThat(choice.getCrf()).isEqualTo(34);
+		assertThat(choice.getPredictedVmaf()).isGreaterThanOrEqualTo(92.0);
+	}
+
+	@Test
+	void fallsBackToCandidateBounds() {
+		assertThat(CrfSelector.fit(scores, 80.0).getCrf()).isEqualTo(45);
+		assertThat(CrfSelector.fit(scores, 99.0).getCrf()).isEqualTo(24);
+	}
+
+	@Test
+	void spreadsSamplesAcrossTheInput() {
+		CrfSelector selector = new CrfSelector(null, null, null, null, null, null);
+		ReflectionTestUtils.setField(selector, "sampleCount", 3);
+		ReflectionTestUtils.setField(selector, "sampleDuration", 4.0);
+
+		assertThat(selector.sampleStarts(100)).containsExactly(23.0, 48.0, 73.0);
+		/* 샘플을 다 담을 수 없는 짧은 영상은 처음부터 한 구간 */
+		assertThat(selector.sampleStarts(10)).containsExactly(0.0);
+	}
+
+	@Test
+	void stoppedSamplesCancelPendingTasksAndStartNoProcess() {
+		EncodingJob job = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, dir);
+		CrfSelector.Samples samples = new CrfSelector.Samples();
+		CompletableFuture<Double> pending = new CompletableFuture<>();
+		CompletableFuture<Integer> running = new CompletableFuture<>();
+		samples.tasks.add(pending);
+		samples.running.add(running);
+
+		samples.stop();
+
+		assertThat(pending).isCancelled();
+		assertThat(running).isCancelled();
+		assertThatThrownBy(() -> samples.run(new FFmpegRunner(null, null), job, dir, List.of("ffmpeg", "-i", "a.mp4")))
+				.isInstanceOf(IOException.class)
+				.hasMessage("Sampling stopped");
+		assertThat(job.getProcesses()).isEmpty();
+		/* 샘플 중지는 본 인코딩을 막지 않는다 */
+		assertThat(job.isAborted()).isFalse();
+	}
+}
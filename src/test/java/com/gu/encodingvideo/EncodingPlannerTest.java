@@ -0,0 +1,80 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.EncodingPlan;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EncodingPlannerTest {
+
+	private final EncodingPlanner planner = planner();
+
+	@Test
+	void choosesCheapestAction() {
+		assertThat(planner.plan(job("a.webm", "matroska,webm", "vp9", 720))).isEqualTo(EncodingPlan.COPY);
+		/* 확장자만 바꾼 mkv, WebM 에서 쓸 수 없는 오디오 */
+		assertThat(planner.plan(job("a.webm", "matroska,webm", "matroska", "vp9", 720, List.of())))
+				.isEqualTo(EncodingPlan.REMUX);
+		assertThat(planner.plan(job("a.webm", "matroska,webm", "webm", "vp9", 720, List.of("aac"))))
+				.isEqualTo(EncodingPlan.REMUX);
+		assertThat(planner.plan(job("a.webm", "matroska,webm", "webm", "vp9", 720, List.of("opus"))))
+				.isEqualTo(EncodingPlan.COPY);
+		assertThat(planner.plan(job("a.mkv", "matroska,webm", "vp9", 1080))).isEqualTo(EncodingPlan.REMUX);
+		assertThat(planner.plan(job("a.mp4", "mov,mp4,m4a,3gp,3g2,mj2", "vp9", 480))).isEqualTo(EncodingPlan.REMUX);
+		assertThat(planner.plan(job("a.webm", "matroska,webm", "vp9", 2160))).isEqualTo(EncodingPlan.ENCODE);
+		assertThat(planner.plan(job("a.mp4", "mov,mp4,m4a,3gp,3g2,mj2", "h264", 720))).isEqualTo(EncodingPlan.ENCODE);
+	}
+
+	@Test
+	void rejectsInputsWithoutVideo() {
+		assertThatThrownBy(() -> planner.validate(null)).isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> planner.validate(info("mp3", null, 0))).isInstanceOf(BadRequestException.class);
+		assertThatThrownBy(() -> planner.validate(info("png_pipe", "png", 600))).isInstanceOf(BadRequestException.class);
+	}
+
+	private static EncodingPlanner planner() {
+		FFmpegCommands commands = new FFmpegCommands(null);
+		ReflectionTestUtils.setField(commands, "maxHeight", 1080);
+		return new EncodingPlanner(commands);
+	}
+
+	private static EncodingJob job(String filename, String formatName, String codec, int height) {
+		return job(filename, formatName, formatName.contains("webm") && filename.endsWith(".webm") ? "webm" : null,
+				codec, height, List.of());
+	}
+
+	private static EncodingJob job(String filename, String formatName, String docType, String codec, int height,
+								   List<String> audioCodecs) {
+		EncodingJob job = new EncodingJob(filename, EncodingOptions.DEFAULT, Path.of("encoding"));
+		job.setMediaInfo(MediaInfo.builder()
+				.formatName(formatName)
+				.docType(docType)
+				.duration(10)
+				.videoCodec(codec)
+				.width(height * 16 / 9)
+				.height(height)
+				.audioCodecs(audioCodecs)
+				.build());
+		return job;
+	}
+
+	private static MediaInfo info(String formatName, String codec, int height) {
+		return MediaInfo.builder()
+				.formatName(formatName)
+				.duration(10)
+				.videoCodec(codec)
+				.width(height * 16 / 9)
+				.height(height)
+				.build();
+	}
+}
@@ -0,0 +1,62 @@
+package com.gu.encodingvideo;
+
+import com.gu.encodingvideo.dto.LiveSegmentEvent;
+import com.gu.encodingvideo.ffmpeg.FFmpegCommands;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiveDashEncoderTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void publishesAllButTheSegmentBeingWritten() throws Exception {
+		EncodingJob job = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, dir);
+		Path workDir = Files.createDirectories(job.getWorkDir());
+		Files.createFile(workDir.resolve("chunk-00001.webm"));
+		Files.createFile(workDir.resolve("chunk-00002.webm"));
+		Files.createFile(workDir.resolve("chunk-00002.webm.tmp"));
+
+		assertThat(LiveDashEncoder.collectSegments(job, 5, false))
+				.extracting(LiveSegmentEvent::getName).containsExactly("chunk-00001.webm");
+		assertThat(LiveDashEncoder.isPublished(job, "chunk-00001.webm")).isTrue();
+		assertThat(LiveDashEncoder.isPublished(job, "chunk-00002.webm")).isFalse();
+		assertThat(LiveDashEncoder.isPublished(job, LiveDashEncoder.MANIFEST)).isTrue();
+		assertThat(LiveDashEncoder.isPublished(job, FFmpegCommands.LIVE_INIT_SEGMENT)).isTrue();
+
+		/* 이미 공개한 세그먼트는 다시 알리지 않는다 */
+		assertThat(LiveDashEncoder.collectSegments(job, 6, false)).isEmpty();
+
+		Files.createFile(workDir.resolve("chunk-00003.webm"));
+		assertThat(LiveDashEncoder.collectSegments(job, 9, false))
+				.extracting(LiveSegmentEvent::getIndex).containsExactly(1);
+
+		/* 종료 시 마지막 세그먼트까지 공개 */
+		assertThat(LiveDashEncoder.collectSegments(job, 10.5, true))
+				.extracting(LiveSegmentEvent::getName).containsExactly("chunk-00003.webm");
+		assertThat(job.getLiveSegments()).containsExactly("chunk-00001.webm", "chunk-00002.webm", "chunk-00003.webm");
+	}
+
+	@Test
+	void listsTheFolderOnlyAfterASegmentBoundary() {
+		LiveDashEncoder encoder = new LiveDashEncoder(null, null, null, null);
+		ReflectionTestUtils.setField(encoder, "segmentDuration", 4.0);
+		EncodingJob job = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, dir);
+
+		assertThat(encoder.hasNewSegments(job, 3.9)).isFalse();
+		assertThat(encoder.hasNewSegments(job, 4.1)).isTrue();
+
+		job.getLiveSegments().add("chunk-00001.webm");
+		assertThat(encoder.hasNewSegments(job, 7.5)).isFalse();
+		assertThat(encoder.hasNewSegments(job, 8.0)).isTrue();
+	}
+}
@@ -0,0 +1,67 @@
+package com.gu.encodingvideo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gu.encodingvideo.ffmpeg.FFmpegRunner;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.JobJournal;
+import com.gu.encodingvideo.job.JobStatus;
+import com.gu.encodingvideo.job.JournalRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentEncoderTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void interruptedSegmentLeavesTheJobResumable() throws Exception {
+		Path file = dir.resolve("jobs.jsonl");
+		JobJournal journal = new JobJournal(new ObjectMapper(), file.toString());
+		EncodingJob job = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, dir);
+		journal.submitted(job, false);
+		journal.started(job);
+		journal.split(job);
+		journal.segmentDone(job, 0);
+		job.changeStatus(JobStatus.RUNNING);
+
+		/* 종료 중 중단된 구간 (FFmpegRunner.run 이 던진 InterruptedException) */
+		CompletableFuture<Integer> interrupted = new CompletableFuture<>();
+		interrupted.completeExceptionally(new CompletionException(new InterruptedException("shutdown")));
+		CompletableFuture<Integer> running = new CompletableFuture<>();
+
+		assertThatThrownBy(() -> SegmentEncoder.awaitSegments(job, List.of(CompletableFuture.completedFuture(0), interrupted, running)))
+				.isInstanceOf(InterruptedException.class);
+		assertThat(running).isCancelled();
+		assertThat(job.getStatus()).isEqualTo(JobStatus.RUNNING);
+		journal.closeChannel();
+
+		JobJournal restarted = new JobJournal(new ObjectMapper(), file.toString());
+		assertThat(restarted.recover()).extracting(JournalRecord::getJobId).containsExactly(job.getId());
+		assertThat(restarted.segmentsDone(job.getId())).containsExactly(0);
+	}
+
+	@Test
+	void failedSegmentFailsTheEncode() throws Exception {
+		EncodingJob job = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, dir);
+
+		assertThat(SegmentEncoder.awaitSegments(job, List.of(CompletableFuture.completedFuture(0),
+				CompletableFuture.completedFuture(1)))).isFalse();
+		assertThat(job.isAborted()).isTrue();
+
+		/* 스레드를 할당받은 뒤 시작하려던 구간은 프로세스를 만들지 않는다 (없는 실행 파일이어도 실패하지 않음) */
+		FFmpegRunner runner = new FFmpegRunner(null, null);
+		assertThat(runner.start(job, dir.toFile(), List.of("no-such-ffmpeg", "-i", "a.mkv"), 0, progress -> {
+		})).isCompletedWithValue(FFmpegRunner.ABORTED_EXIT_CODE);
+		assertThat(job.getProcesses()).isEmpty();
+	}
+}
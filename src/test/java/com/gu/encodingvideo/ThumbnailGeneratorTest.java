@@ -0,0 +1,29 @@
+package com.gu.encodingvideo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThumbnailGeneratorTest {
+
+	@Test
+	void writesCuesWithSpritePositions() {
+		ThumbnailGenerator generator = new ThumbnailGenerator();
+		ReflectionTestUtils.setField(generator, "interval", 10);
+		ReflectionTestUtils.setField(generator, "width", 160);
+		ReflectionTestUtils.setField(generator, "columns", 2);
+		ReflectionTestUtils.setField(generator, "rows", 2);
+
+		String vtt = generator.webVtt(List.of("sprite-001.jpg", "sprite-002.jpg"), 45, 90);
+
+		assertThat(vtt).startsWith("WEBVTT\n");
+		assertThat(vtt).contains("00:00:00.000 --> 00:00:10.000\nsprite-001.jpg#xywh=0,0,160,90\n");
+		assertThat(vtt).contains("00:00:30.000 --> 00:00:40.000\nsprite-001.jpg#xywh=160,90,160,90\n");
+		/* 마지막 미리보기는 영상 끝까지 */
+		assertThat(vtt).contains("00:00:40.000 --> 00:00:45.000\nsprite-002.jpg#xywh=0,0,160,90\n");
+		assertThat(vtt.split("-->")).hasSize(6);
+	}
+}
@@ -0,0 +1,44 @@
+package com.gu.encodingvideo.admission;
+
+import com.gu.encodingvideo.job.JobScheduler;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class AdmissionControlTest {
+
+	@Test
+	void admitsWhileWorkersAreIdle() {
+		JobScheduler.Backlog backlog = new JobScheduler.Backlog(0, 0, 5000, 1, 4, 1.0);
+
+		assertThat(AdmissionControl.retryAfter(backlog, 10_000, 100, 1800)).isZero();
+	}
+
+	@Test
+	void retriesAfterTheBacklogDrainsBelowTheLimit() {
+		/* 4 워커 x 1.0 → 초당 4, (6000 + 1200 + 400) / 4 = 1900초, 한도 1800초 */
+		JobScheduler.Backlog backlog = new JobScheduler.Backlog(3, 6000, 1200, 0, 4, 1.0);
+
+		assertThat(AdmissionControl.retryAfter(backlog, 400, 100, 1800)).isEqualTo(100);
+		assertThat(AdmissionControl.retryAfter(backlog, 0, 100, 1800)).isEqualTo(0);
+	}
+
+	@Test
+	void retriesAfterPendingJobsDrainBelowTheCount() {
+		/* 평균 비용 (400 + 400) / (4 + 4) = 100, 1개 줄어들 때까지 100 / 8 = 12.5초 */
+		JobScheduler.Backlog backlog = new JobScheduler.Backlog(4, 400, 400, 0, 4, 2.0);
+
+		assertThat(AdmissionControl.retryAfter(backlog, 0, 4, 1800)).isEqualTo(13);
+	}
+
+	@Test
+	void neverRejectsInDistributedMode() {
+		AdmissionControl admission = new AdmissionControl(null, null);
+		ReflectionTestUtils.setField(admission, "enabled", true);
+		ReflectionTestUtils.setField(admission, "distributed", true);
+
+		assertThatCode(() -> admission.checkUpload(Long.MAX_VALUE)).doesNotThrowAnyException();
+	}
+}
@@ -0,0 +1,46 @@
+package com.gu.encodingvideo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentHashTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void sameHashForFilesAndStreamsInAnySlices() throws Exception {
+		byte[] content = new byte[ContentHash.BLOCK_SIZE * 3 + 123];
+		new Random(2).nextBytes(content);
+		Path file = Files.write(dir.resolve("a.mp4"), content);
+
+		ContentHash streamed = new ContentHash();
+		try (InputStream input = streamed.wrap(new ByteArrayInputStream(content))) {
+			input.transferTo(OutputStream.nullOutputStream());
+		}
+
+		ContentHash sliced = new ContentHash();
+		for (int offset = 0; offset < content.length; offset += 100_000) {
+			sliced.update(content, offset, Math.min(100_000, content.length - offset));
+		}
+
+		assertThat(streamed.finish()).isEqualTo(ContentHash.of(file)).isEqualTo(sliced.finish());
+	}
+
+	@Test
+	void hashesOptionsAsUtf8() {
+		assertThat(TranscodeCache.sha256("-crf 31 é")).isEqualTo(HexFormat.of().formatHex(
+				TranscodeCache.newDigest().digest("-crf 31 é".getBytes(StandardCharsets.UTF_8))));
+	}
+}
@@ -0,0 +1,80 @@
+package com.gu.encodingvideo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TranscodeCacheTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void evictsLeastRecentlyUsedFirst() {
+		MemoryCacheIndex index = new MemoryCacheIndex();
+		index.put("a", "a.webm", 1);
+		index.put("b", "b.webm", 2);
+		index.put("c", "c.webm", 3);
+		assertThat(index.totalSize()).isEqualTo(6);
+
+		assertThat(index.touch("a")).contains("a.webm");
+
+		assertThat(index.removeEldest()).contains("b.webm");
+		assertThat(index.removeEldest()).contains("c.webm");
+		assertThat(index.removeEldest()).contains("a.webm");
+		assertThat(index.removeEldest()).isEmpty();
+		assertThat(index.totalSize()).isZero();
+	}
+
+	@Test
+	void evictsOverBudgetWithArtifacts() throws Exception {
+		TranscodeCache cache = cache(10);
+		Path poster = Files.writeString(root.resolve("poster.jpg"), "pp");
+
+		cache.put("one", Files.writeString(root.resolve("one.webm"), "111111"), List.of(poster));
+		assertThat(cache.getSize()).isEqualTo(8);
+		assertThat(cache.getArtifacts("one")).hasSize(1);
+
+		cache.put("two", Files.writeString(root.resolve("two.webm"), "222222"), List.of());
+
+		assertThat(cache.getSize()).isEqualTo(6);
+		assertThat(cache.get("one")).isEmpty();
+		assertThat(cache.getArtifacts("one")).isEmpty();
+		assertThat(Files.exists(root.resolve("encoding/cache/one.artifacts"))).isFalse();
+		assertThat(cache.get("two")).isPresent();
+	}
+
+	@Test
+	void rebuildsIndexFromCacheFolderAfterRestart() throws Exception {
+		TranscodeCache before = cache(100);
+		before.put("old", Files.writeString(root.resolve("old.webm"), "1111"), List.of());
+		before.put("new", Files.writeString(root.resolve("new.webm"), "2222"), List.of());
+		Path cacheDir = root.resolve("encoding/cache");
+		Files.setLastModifiedTime(cacheDir.resolve("old.webm"), FileTime.fromMillis(1_000));
+		Files.setLastModifiedTime(cacheDir.resolve("new.webm"), FileTime.fromMillis(2_000));
+		Files.createDirectories(cacheDir.resolve("gone.artifacts"));
+
+		TranscodeCache after = cache(8);
+		after.rebuild();
+
+		assertThat(after.getSize()).isEqualTo(8);
+		assertThat(Files.exists(cacheDir.resolve("gone.artifacts"))).isFalse();
+
+		/* 수정 시각이 오래된 항목부터 삭제 */
+		after.put("more", Files.writeString(root.resolve("more.webm"), "3333"), List.of());
+		assertThat(after.get("old")).isEmpty();
+		assertThat(after.get("new")).isPresent();
+		assertThat(after.get("more")).map(path -> path.getFileName().toString()).isEqualTo(Optional.of("more.webm"));
+	}
+
+	private TranscodeCache cache(long maxSize) {
+		return new TranscodeCache(true, false, maxSize, root.toString(), "encoding", null);
+	}
+}
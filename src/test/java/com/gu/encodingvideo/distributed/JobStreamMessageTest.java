@@ -0,0 +1,33 @@
+package com.gu.encodingvideo.distributed;
+
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.EncodingPreset;
+import com.gu.encodingvideo.job.EncodingProfile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobStreamMessageTest {
+
+	@Test
+	void roundTripsThroughStreamFields() {
+		EncodingOptions options = EncodingOptions.builder()
+				.profile(EncodingProfile.ABR)
+				.preset(EncodingPreset.ARCHIVE)
+				.targetVmaf(93.5)
+				.build();
+		EncodingJob job = new EncodingJob("a.mp4", options, Path.of("encoding"));
+
+		JobStreamMessage message = JobStreamMessage.from(JobStreamMessage.of(job).toMap());
+
+		assertThat(message.getJobId()).isEqualTo(job.getId());
+		assertThat(message.getFilename()).isEqualTo("a.mp4");
+		assertThat(message.getOptions().getProfile()).isEqualTo(EncodingProfile.ABR);
+		assertThat(message.getOptions().getPreset()).isEqualTo(EncodingPreset.ARCHIVE);
+		assertThat(message.getOptions().getTargetVmaf()).isEqualTo(93.5);
+		assertThat(message.getCacheKey()).isNull();
+	}
+}
@@ -0,0 +1,87 @@
+package com.gu.encodingvideo.download;
+
+import com.gu.encodingvideo.PreviewEncoder;
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.job.JobStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OutputDownloadServiceTest {
+
+	@TempDir
+	Path dir;
+
+	private final OutputDownloadService service = new OutputDownloadService();
+
+	@Test
+	void servesRangesAndHonoursEtag() throws Exception {
+		Path file = Files.writeString(dir.resolve("a.webm"), "0123456789");
+
+		MockHttpServletResponse full = send(file, new MockHttpServletRequest("GET", "/"));
+		assertThat(full.getStatus()).isEqualTo(200);
+		assertThat(full.getContentAsString()).isEqualTo("0123456789");
+		String etag = full.getHeader("ETag");
+		assertThat(etag).startsWith("\"");
+
+		MockHttpServletRequest rangeRequest = new MockHttpServletRequest("GET", "/");
+		rangeRequest.addHeader("Range", "bytes=2-5");
+		MockHttpServletResponse partial = send(file, rangeRequest);
+		assertThat(partial.getStatus()).isEqualTo(206);
+		assertThat(partial.getHeader("Content-Range")).isEqualTo("bytes 2-5/10");
+		assertThat(partial.getContentAsString()).isEqualTo("2345");
+
+		MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/");
+		conditional.addHeader("If-None-Match", etag);
+		assertThat(send(file, conditional).getStatus()).isEqualTo(304);
+
+		MockHttpServletRequest unsatisfiable = new MockHttpServletRequest("GET", "/");
+		unsatisfiable.addHeader("Range", "bytes=20-");
+		MockHttpServletResponse rejected = send(file, unsatisfiable);
+		assertThat(rejected.getStatus()).isEqualTo(416);
+		assertThat(rejected.getHeader("Content-Range")).isEqualTo("bytes */10");
+	}
+
+	@Test
+	void handsRangesToTomcatSendfileWhenSupported() throws Exception {
+		Path file = Files.writeString(dir.resolve("a.webm"), "0123456789");
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setAttribute(OutputDownloadService.SENDFILE_SUPPORT, Boolean.TRUE);
+		request.addHeader("Range", "bytes=2-5");
+		MockHttpServletResponse response = send(file, request);
+
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getContentLengthLong()).isEqualTo(4);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+		assertThat(request.getAttribute(OutputDownloadService.SENDFILE_FILENAME)).isEqualTo(file.toAbsolutePath().toString());
+		assertThat(request.getAttribute(OutputDownloadService.SENDFILE_START)).isEqualTo(2L);
+		assertThat(request.getAttribute(OutputDownloadService.SENDFILE_END)).isEqualTo(6L);
+	}
+
+	@Test
+	void servesPreviewBeforeTheFullEncodeCompletes() throws Exception {
+		EncodingJob job = new EncodingJob("preview.mp4", EncodingOptions.DEFAULT, dir);
+		Path preview = Files.writeString(Files.createDirectories(job.getWorkDir()).resolve(PreviewEncoder.PREVIEW_FILE), "preview");
+		job.setPreviewFile(preview);
+		job.changeStatus(JobStatus.RUNNING);
+
+		assertThat(service.resolve(job, PreviewEncoder.PREVIEW_FILE)).isEqualTo(preview);
+		assertThatThrownBy(() -> service.resolve(job, null)).isInstanceOf(BadRequestException.class);
+	}
+
+	private MockHttpServletResponse send(Path file, MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		service.send(file, request, response);
+		return response;
+	}
+}
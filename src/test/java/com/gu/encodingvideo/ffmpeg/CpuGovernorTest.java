@@ -0,0 +1,65 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CpuGovernorTest {
+
+	@Test
+	void splitsBudgetAcrossActiveProcesses() throws Exception {
+		CpuGovernor governor = new CpuGovernor(8, 4, 0, 0);
+
+		/* 두 번째 슬롯의 몫(4)을 남긴다 */
+		CpuGovernor.Lease first = governor.acquire();
+		assertThat(first.getThreads()).isEqualTo(4);
+
+		CpuGovernor.Lease second = governor.acquire();
+		assertThat(second.getThreads()).isEqualTo(4);
+		assertThat(governor.getAllocated()).isEqualTo(8);
+
+		/* 남은 예산이 없으면 반납될 때까지 기다린다 */
+		CompletableFuture<CpuGovernor.Lease> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return governor.acquire();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		TimeUnit.MILLISECONDS.sleep(200);
+		assertThat(waiting).isNotDone();
+
+		first.close();
+		first.close();
+		CpuGovernor.Lease third = waiting.get(5, TimeUnit.SECONDS);
+		assertThat(third.getThreads()).isEqualTo(4);
+		assertThat(governor.getActive()).isEqualTo(2);
+		assertThat(governor.getAllocated()).isLessThanOrEqualTo(governor.getBudget());
+
+		second.close();
+		third.close();
+		assertThat(governor.acquire().getThreads()).isEqualTo(4);
+	}
+
+	@Test
+	void splitsTheBudgetEvenlyAcrossSlots() throws Exception {
+		CpuGovernor governor = new CpuGovernor(32, 4, 0, 0);
+
+		/* 먼저 시작한 작업이 몫보다 많이 가져가지 않는다 */
+		for (int i = 0; i < 8; i++) {
+			assertThat(governor.acquire().getThreads()).isEqualTo(4);
+		}
+		assertThat(governor.getActive()).isEqualTo(8);
+		assertThat(governor.getAllocated()).isEqualTo(governor.getBudget());
+	}
+
+	@Test
+	void keepsThePreviewShareOutOfTheBudget() {
+		CpuGovernor governor = new CpuGovernor(10, 4, 1, 2);
+
+		assertThat(governor.getBudget()).isEqualTo(8);
+	}
+}
@@ -0,0 +1,47 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import com.gu.encodingvideo.job.EncodingPreset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FFmpegCommandsTest {
+
+	private final Locale defaultLocale = Locale.getDefault();
+
+	private FFmpegCommands commands;
+
+	@BeforeEach
+	void setUp() {
+		/* 소수점이 쉼표인 로캘에서도 FFmpeg 인자는 점을 쓴다 */
+		Locale.setDefault(Locale.GERMANY);
+		FFmpegBinaries binaries = new FFmpegBinaries();
+		ReflectionTestUtils.setField(binaries, "basePath", "/opt/encoding");
+		commands = new FFmpegCommands(binaries);
+	}
+
+	@AfterEach
+	void tearDown() {
+		Locale.setDefault(defaultLocale);
+	}
+
+	@Test
+	void formatsSampleTimesWithADot() {
+		assertThat(commands.encodeSample("in.mp4", 12.5, 4, "out.webm", EncodingPreset.BALANCED, 31, 2))
+				.containsSubsequence("-ss", "12.500", "-t", "4.000");
+		assertThat(commands.vmaf("out.webm", "in.mp4", 12.5, 4, "vmaf_v0.6.1.json", "out.json", 2))
+				.containsSubsequence("-ss", "12.500", "-t", "4.000");
+	}
+
+	@Test
+	void formatsSegmentTimesWithADot() {
+		assertThat(commands.splitAtKeyframes("in.mp4", List.of(120.5, 241.0), "source_%04d.mkv"))
+				.containsSubsequence("-segment_times", "120.500000,241.000000");
+	}
+}
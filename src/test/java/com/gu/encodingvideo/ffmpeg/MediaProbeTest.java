@@ -0,0 +1,41 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MediaProbeTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsDocTypeFromTheEbmlHeader() throws Exception {
+		assertThat(MediaProbe.docType(Files.write(dir.resolve("a.webm"), ebmlHeader("webm")))).isEqualTo("webm");
+		/* 확장자만 바꾼 mkv */
+		assertThat(MediaProbe.docType(Files.write(dir.resolve("b.webm"), ebmlHeader("matroska")))).isEqualTo("matroska");
+		assertThat(MediaProbe.docType(Files.writeString(dir.resolve("c.mp4"), "....ftypisom"))).isNull();
+	}
+
+	/* EBMLVersion(1), DocType, DocTypeVersion(4) */
+	private static byte[] ebmlHeader(String docType) {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.writeBytes(new byte[]{0x42, (byte) 0x86, (byte) 0x81, 0x01});
+		body.writeBytes(new byte[]{0x42, (byte) 0x82, (byte) (0x80 | docType.length())});
+		body.writeBytes(docType.getBytes(StandardCharsets.US_ASCII));
+		body.writeBytes(new byte[]{0x42, (byte) 0x87, (byte) 0x81, 0x04});
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		header.writeBytes(new byte[]{0x1A, 0x45, (byte) 0xDF, (byte) 0xA3, (byte) (0x80 | body.size())});
+		header.writeBytes(body.toByteArray());
+		/* Segment 시작 */
+		header.writeBytes(new byte[]{0x18, 0x53, (byte) 0x80, 0x67});
+		return header.toByteArray();
+	}
+}
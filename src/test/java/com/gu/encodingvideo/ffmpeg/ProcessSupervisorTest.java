@@ -0,0 +1,59 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingJobRegistry;
+import com.gu.encodingvideo.job.EncodingOptions;
+import com.gu.encodingvideo.metrics.EncodingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessSupervisorTest {
+
+	@TempDir
+	Path root;
+
+	SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	ProcessSupervisor supervisor = new ProcessSupervisor(new EncodingMetrics(registry, new EncodingJobRegistry()), 1, 1, 0);
+
+	@AfterEach
+	void tearDown() {
+		supervisor.shutdown();
+	}
+
+	@Test
+	void readsProgressAndCompletesOnExit() throws Exception {
+		EncodingJob job = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, root);
+		Process process = new ProcessBuilder("sh", "-c",
+				"printf 'frame=10\\nout_time_us=2000000\\nprogress=continue\\n'; sleep 0.3; printf 'progress=end\\n'").start();
+		List<FFmpegProgress> received = new CopyOnWriteArrayList<>();
+
+		int exitCode = supervisor.supervise(job, process, 4, received::add).get(10, TimeUnit.SECONDS);
+
+		assertThat(exitCode).isZero();
+		assertThat(received).hasSize(2);
+		assertThat(received.get(0).getOutTime()).isEqualTo(2.0);
+		assertThat(received.get(1).isEnd()).isTrue();
+		assertThat(supervisor.getSupervisedCount()).isZero();
+	}
+
+	@Test
+	void killsStalledProcess() throws Exception {
+		EncodingJob job = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, root);
+		Process process = new ProcessBuilder("sleep", "30").start();
+
+		int exitCode = supervisor.supervise(job, process, 0, progress -> { }).get(10, TimeUnit.SECONDS);
+
+		assertThat(exitCode).isNotZero();
+		assertThat(registry.get("encoding.ffmpeg.killed").tag("reason", "stall").counter().count()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,49 @@
+package com.gu.encodingvideo.ffmpeg;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ProgressParserTest {
+
+	@Test
+	void emitsProgressAtEndOfBlock() {
+		ProgressParser parser = new ProgressParser(100);
+
+		assertThat(parser.accept("frame=250")).isNull();
+		assertThat(parser.accept("fps=25.00")).isNull();
+		assertThat(parser.accept("bitrate=1234.5kbits/s")).isNull();
+		assertThat(parser.accept("out_time_us=10000000")).isNull();
+		assertThat(parser.accept("out_time=00:00:10.000000")).isNull();
+		assertThat(parser.accept("speed=2.5x")).isNull();
+
+		FFmpegProgress progress = parser.accept("progress=continue");
+
+		assertThat(progress.getFrame()).isEqualTo(250);
+		assertThat(progress.getFps()).isEqualTo(25.0);
+		assertThat(progress.getBitrate()).isEqualTo(1234.5);
+		assertThat(progress.getOutTime()).isEqualTo(10.0);
+		assertThat(progress.getSpeed()).isEqualTo(2.5);
+		assertThat(progress.getPercent()).isCloseTo(10.0, within(0.001));
+		assertThat(progress.getEta()).isCloseTo(36.0, within(0.001));
+		assertThat(progress.isEnd()).isFalse();
+	}
+
+	@Test
+	void keepsLastValueForNotAvailableFields() {
+		ProgressParser parser = new ProgressParser(0);
+
+		parser.accept("speed=1.5x");
+		parser.accept("progress=continue");
+		parser.accept("speed=N/A");
+		parser.accept("bitrate=N/A");
+		parser.accept("out_time_us=N/A");
+		FFmpegProgress progress = parser.accept("progress=end");
+
+		assertThat(progress.getSpeed()).isEqualTo(1.5);
+		assertThat(progress.getPercent()).isNull();
+		assertThat(progress.getEta()).isNull();
+		assertThat(progress.isEnd()).isTrue();
+	}
+}
@@ -0,0 +1,122 @@
+package com.gu.encodingvideo.ingest;
+
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.exception.ErrorCode;
+import com.gu.encodingvideo.job.EncodingJob;
+import com.gu.encodingvideo.job.EncodingOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PathIngestServiceTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void acceptsOnlyFilesUnderAllowedRoots() throws Exception {
+		Path shared = Files.createDirectories(root.resolve("shared"));
+		Path source = Files.writeString(shared.resolve("a.mp4"), "video");
+		Files.writeString(root.resolve("b.mp4"), "video");
+
+		PathIngestService service = new PathIngestService(null);
+		ReflectionTestUtils.setField(service, "allowedRoots", List.of(shared.toString()));
+		ReflectionTestUtils.setField(service, "watchDirs", List.of());
+
+		assertThat(service.resolve(source.toString())).isEqualTo(source.toRealPath());
+		assertThatThrownBy(() -> service.resolve(shared.resolve("../b.mp4").toString()))
+				.isInstanceOfSatisfying(BadRequestException.class,
+						e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.PATH_NOT_ALLOWED));
+		assertThatThrownBy(() -> service.resolve(shared.resolve("missing.mp4").toString()))
+				.isInstanceOfSatisfying(BadRequestException.class,
+						e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.FILE_NOT_FOUND));
+	}
+
+	@Test
+	void scansFilesThatArrivedBeforeTheWatcherStarted() throws Exception {
+		Path watch = Files.createDirectories(root.resolve("watch"));
+		Files.writeString(watch.resolve("a.mp4"), "video");
+		Files.writeString(watch.resolve(".hidden.mp4"), "video");
+		Files.writeString(watch.resolve("b.mp4.part"), "video");
+
+		PathIngestService service = watching(new ArrayList<>());
+		service.scan(watch);
+
+		assertThat(service.getPending()).containsOnlyKeys(watch.resolve("a.mp4"));
+	}
+
+	@Test
+	void ignoresEventsForFilesAlreadyIngested() throws Exception {
+		Path watch = Files.createDirectories(root.resolve("watch"));
+		Path source = Files.writeString(watch.resolve("a.mp4"), "video");
+		List<Path> submitted = new ArrayList<>();
+		PathIngestService service = watching(submitted);
+		service.loadIngested();
+
+		service.onEvent(source);
+		service.submitStable(EncodingOptions.DEFAULT, 0);
+		service.submitStable(EncodingOptions.DEFAULT, 1);
+		assertThat(submitted).containsExactly(source);
+
+		/* 작업 폴더에 링크를 만들면 링크 수 변경으로 MODIFY 이벤트가 온다 */
+		Files.createLink(root.resolve("a-link.mp4"), source);
+		service.onEvent(source);
+		service.submitStable(EncodingOptions.DEFAULT, 2);
+		service.submitStable(EncodingOptions.DEFAULT, 3);
+		assertThat(service.getPending()).isEmpty();
+		assertThat(submitted).containsExactly(source);
+
+		/* 재시작 후에도 다시 등록하지 않는다 */
+		PathIngestService restarted = watching(submitted);
+		restarted.loadIngested();
+		restarted.scan(watch);
+		assertThat(restarted.getPending()).isEmpty();
+
+		/* 내용이 바뀐 파일은 새로 등록 */
+		Files.writeString(source, "new video");
+		restarted.onEvent(source);
+		assertThat(restarted.getPending()).containsOnlyKeys(source);
+	}
+
+	private PathIngestService watching(List<Path> submitted) {
+		PathIngestService service = new PathIngestService(null) {
+			@Override
+			EncodingJob submit(Path source, EncodingOptions options) {
+				submitted.add(source);
+				return null;
+			}
+		};
+		ReflectionTestUtils.setField(service, "extensions", List.of("mp4"));
+		ReflectionTestUtils.setField(service, "stateFile", root.resolve("ingested.tsv").toString());
+		return service;
+	}
+
+	@Test
+	void submitsOnlyAfterTheSizeStopsChanging() {
+		long stable = TimeUnit.SECONDS.toNanos(10);
+		PathIngestService.Pending state = new PathIngestService.Pending();
+
+		/* 처음 본 크기는 아직 복사 중일 수 있다 */
+		assertThat(state.ready(100, 1, 0, stable)).isFalse();
+		assertThat(state.ready(100, 1, stable - 1, stable)).isFalse();
+
+		/* 크기가 늘면 다시 기다린다 */
+		assertThat(state.ready(200, 2, stable, stable)).isFalse();
+		assertThat(state.ready(200, 2, stable * 2 - 1, stable)).isFalse();
+		assertThat(state.ready(200, 2, stable * 2, stable)).isTrue();
+
+		/* 대기열이 가득 차면 재시도 시각까지 기다린다 */
+		state.retryAt = stable * 3;
+		assertThat(state.ready(200, 2, stable * 2, stable)).isFalse();
+		assertThat(state.ready(200, 2, stable * 3, stable)).isTrue();
+	}
+}
@@ -0,0 +1,42 @@
+package com.gu.encodingvideo.job;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncodingJobRegistryTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void evictsFinishedJobsAfterTheRetentionPeriod() {
+		EncodingJobRegistry registry = new EncodingJobRegistry();
+		ReflectionTestUtils.setField(registry, "retentionSeconds", 60L);
+
+		EncodingJob running = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, dir);
+		running.changeStatus(JobStatus.RUNNING);
+		EncodingJob completed = new EncodingJob("b.mp4", EncodingOptions.DEFAULT, dir);
+		completed.changeStatus(JobStatus.COMPLETED);
+		EncodingJob cancelled = new EncodingJob("c.mp4", EncodingOptions.DEFAULT, dir);
+		cancelled.changeStatus(JobStatus.CANCELLED);
+		registry.register(running);
+		registry.register(completed);
+		registry.register(cancelled);
+
+		long finishedAt = Math.max(completed.getTimings().finishedAt(), cancelled.getTimings().finishedAt());
+
+		/* 보관 기간 안에서는 그대로 */
+		registry.evictFinished(finishedAt + TimeUnit.SECONDS.toNanos(59));
+		assertThat(registry.findAll()).hasSize(3);
+
+		registry.evictFinished(finishedAt + TimeUnit.SECONDS.toNanos(60));
+		assertThat(registry.findAll()).containsExactly(running);
+		assertThat(registry.find(completed.getId())).isEmpty();
+	}
+}
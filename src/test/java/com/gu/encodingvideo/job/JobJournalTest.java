@@ -0,0 +1,47 @@
+package com.gu.encodingvideo.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobJournalTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void recoversUnfinishedJobsAndSegments() throws Exception {
+		Path file = dir.resolve("jobs.jsonl");
+		JobJournal journal = new JobJournal(new ObjectMapper(), file.toString());
+
+		EncodingJob finished = new EncodingJob("a.mp4", EncodingOptions.DEFAULT, dir);
+		EncodingJob running = new EncodingJob("b.mp4", EncodingOptions.builder().preset(EncodingPreset.ARCHIVE).build(), dir);
+		journal.submitted(finished, false);
+		journal.submitted(running, false);
+		journal.started(running);
+		journal.split(running);
+		journal.segmentDone(running, 0);
+		journal.segmentDone(running, 2);
+		finished.changeStatus(JobStatus.COMPLETED);
+		journal.closeChannel();
+
+		/* 기록 중 중단된 줄 */
+		Files.writeString(file, "{\"type\":\"SEGMENT_DO", StandardOpenOption.APPEND);
+
+		JobJournal restarted = new JobJournal(new ObjectMapper(), file.toString());
+		List<JournalRecord> recovered = restarted.recover();
+
+		assertThat(recovered).extracting(JournalRecord::getJobId).containsExactly(running.getId());
+		assertThat(recovered.get(0).getOptions().getPreset()).isEqualTo(EncodingPreset.ARCHIVE);
+		assertThat(restarted.isSplit(running.getId())).isTrue();
+		assertThat(restarted.segmentsDone(running.getId())).containsExactlyInAnyOrder(0, 2);
+		assertThat(Files.readAllLines(file)).noneMatch(line -> line.contains(finished.getId()));
+	}
+}
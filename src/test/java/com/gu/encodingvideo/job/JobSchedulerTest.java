@@ -0,0 +1,46 @@
+package com.gu.encodingvideo.job;
+
+import com.gu.encodingvideo.ffmpeg.MediaInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobSchedulerTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void prefersShortJobsUntilLongJobsAge() {
+		long now = TimeUnit.HOURS.toNanos(1);
+		JobScheduler.Entry longJob = entry("a", 600, 1920, 1080, now - TimeUnit.SECONDS.toNanos(10));
+		JobScheduler.Entry shortJob = entry("b", 10, 1280, 720, now);
+
+		assertThat(JobScheduler.select(List.of(longJob, shortJob), Map.of(), now, 5)).isSameAs(shortJob);
+
+		/* 120초 기다린 긴 작업은 새로 들어온 짧은 작업보다 먼저 */
+		JobScheduler.Entry agedJob = entry("a", 600, 1920, 1080, now - TimeUnit.SECONDS.toNanos(120));
+		assertThat(JobScheduler.select(List.of(agedJob, shortJob), Map.of(), now, 5)).isSameAs(agedJob);
+	}
+
+	@Test
+	void sharesWorkersAcrossClients() {
+		long now = TimeUnit.HOURS.toNanos(1);
+		JobScheduler.Entry busyClient = entry("a", 5, 1280, 720, now);
+		JobScheduler.Entry idleClient = entry("b", 600, 1920, 1080, now);
+
+		assertThat(JobScheduler.select(List.of(busyClient, idleClient), Map.of("a", 2), now, 5)).isSameAs(idleClient);
+	}
+
+	private JobScheduler.Entry entry(String clientId, double duration, int width, int height, long queuedAt) {
+		EncodingJob job = new EncodingJob("a.mp4", EncodingOptions.builder().clientId(clientId).build(), root);
+		job.setMediaInfo(MediaInfo.builder().duration(duration).width(width).height(height).build());
+		return new JobScheduler.Entry(job, clientId, JobScheduler.cost(job), queuedAt, () -> { });
+	}
+}
@@ -0,0 +1,33 @@
+package com.gu.encodingvideo.metrics;
+
+import com.gu.encodingvideo.ffmpeg.FFmpegProgress;
+import com.gu.encodingvideo.job.EncodingJobRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncodingMetricsTest {
+
+	@Test
+	void recordsProcessLifecycle() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		EncodingMetrics metrics = new EncodingMetrics(registry, new EncodingJobRegistry());
+
+		metrics.processStarted();
+		metrics.processStarted();
+		assertThat(registry.get("encoding.ffmpeg.active").gauge().value()).isEqualTo(2);
+
+		metrics.processFinished(0, TimeUnit.SECONDS.toNanos(10), FFmpegProgress.of(20, 600, 60, 1000, 2.0, 20, true));
+		metrics.processFinished(1, TimeUnit.SECONDS.toNanos(1), null);
+
+		assertThat(registry.get("encoding.ffmpeg.active").gauge().value()).isZero();
+		assertThat(registry.get("encoding.ffmpeg.exit").tag("code", "0").counter().count()).isEqualTo(1);
+		assertThat(registry.get("encoding.ffmpeg.exit").tag("code", "1").counter().count()).isEqualTo(1);
+		assertThat(registry.get("encoding.ffmpeg.speed").summary().mean()).isEqualTo(2.0);
+		assertThat(registry.get("encoding.ffmpeg.duration").tag("result", "success").timer()
+				.totalTime(TimeUnit.SECONDS)).isEqualTo(10);
+	}
+}
@@ -0,0 +1,114 @@
+package com.gu.encodingvideo.storage;
+
+import com.gu.encodingvideo.exception.BadRequestException;
+import com.gu.encodingvideo.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScratchStorageTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	void enforcesQuotaUntilReleased() {
+		ScratchStorage storage = new ScratchStorage(root.toString(), "encoding", "", 0, 100, 0, false);
+
+		storage.reserve("a", 60);
+		assertThatThrownBy(() -> storage.reserve("b", 50))
+				.isInstanceOfSatisfying(BadRequestException.class,
+						e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.STORAGE_FULL));
+
+		storage.release("a");
+		storage.reserve("b", 50);
+		assertThat(storage.getReserved()).isEqualTo(50);
+	}
+
+	@Test
+	void rejectsUploadsBelowMinimumFreeSpace() {
+		ScratchStorage storage = new ScratchStorage(root.toString(), "encoding", "", Long.MAX_VALUE / 2, 0, 0, false);
+
+		assertThatThrownBy(() -> storage.checkFreeSpace(1)).isInstanceOf(BadRequestException.class);
+	}
+
+	@Test
+	void usesFastTierOnlyOnSingleNode() {
+		Path fast = root.resolve("fast");
+
+		assertThat(new ScratchStorage(root.toString(), "encoding", fast.toString(), 0, 0, 0, false).getScratchRoot())
+				.isEqualTo(fast);
+		assertThat(new ScratchStorage(root.toString(), "encoding", fast.toString(), 0, 0, 0, true).isFastTier())
+				.isFalse();
+	}
+
+	@Test
+	void deletesAtLimitedRate() throws Exception {
+		ScratchStorage storage = new ScratchStorage(root.toString(), "encoding", "", 0, 0, 1_000_000, false);
+		Path dir = Files.createDirectories(root.resolve("job/segments"));
+		Files.write(dir.resolve("a.webm"), new byte[200_000]);
+		Files.write(dir.resolve("b.webm"), new byte[200_000]);
+
+		long startedAt = System.nanoTime();
+		storage.delete(root.resolve("job"));
+
+		/* 400KB / 1MB/s */
+		assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(350_000_000L);
+		assertThat(root.resolve("job")).doesNotExist();
+	}
+
+	@Test
+	void sweepsLeftoversOfThePreviousRun() throws Exception {
+		ScratchStorage storage = new ScratchStorage(root.toString(), "encoding", root.resolve("fast").toString(),
+				0, 0, 0, false);
+		String resumed = UUID.randomUUID().toString();
+		String finished = UUID.randomUUID().toString();
+		Path bulk = root.resolve("encoding");
+		Path fast = root.resolve("fast");
+
+		Path upload = Files.writeString(Files.createDirectories(storage.uploadDir()).resolve("a.part"), "part");
+		Path resumedScratch = Files.createDirectories(fast.resolve(resumed));
+		Path finishedScratch = Files.createDirectories(fast.resolve(finished).resolve("segments"));
+		Path output = Files.writeString(Files.createDirectories(bulk.resolve(finished)).resolve("a.webm"), "webm");
+		Path segments = Files.createDirectories(bulk.resolve(finished).resolve("segments"));
+		Path cache = Files.createDirectories(bulk.resolve("cache"));
+		for (Path path : List.of(upload, resumedScratch, fast.resolve(finished), bulk.resolve(finished), cache)) {
+			Files.setLastModifiedTime(path, FileTime.fromMillis(1_000));
+		}
+		/* 이번 실행에서 만든 업로드는 남긴다 */
+		Path current = Files.writeString(storage.uploadDir().resolve("b.part"), "part");
+
+		storage.sweep(Set.of(resumed));
+		storage.shutdown();
+
+		assertThat(upload).doesNotExist();
+		assertThat(current).exists();
+		assertThat(resumedScratch).exists();
+		assertThat(finishedScratch.getParent()).doesNotExist();
+		assertThat(segments).doesNotExist();
+		assertThat(output).exists();
+		assertThat(cache).exists();
+	}
+
+	@Test
+	void finishesPendingDeletesOnShutdownWithoutTheRateLimit() throws Exception {
+		ScratchStorage storage = new ScratchStorage(root.toString(), "encoding", "", 0, 0, 1, false);
+		Path file = Files.write(root.resolve("a.webm"), new byte[200_000]);
+
+		storage.deleteLater(file);
+		long startedAt = System.nanoTime();
+		storage.shutdown();
+
+		assertThat(file).doesNotExist();
+		assertThat(System.nanoTime() - startedAt).isLessThan(5_000_000_000L);
+	}
+}
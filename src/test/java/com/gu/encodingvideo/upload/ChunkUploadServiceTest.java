@@ -0,0 +1,45 @@
+package com.gu.encodingvideo.upload;
+
+import com.gu.encodingvideo.storage.ScratchStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkUploadServiceTest {
+
+	@TempDir
+	Path root;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void abortsSessionsIdleLongerThanTheTtl() throws Exception {
+		ScratchStorage storage = new ScratchStorage(root.toString(), "encoding", "", 0, 0, 0, false);
+		ChunkUploadService service = new ChunkUploadService(null, null, storage, null);
+		ReflectionTestUtils.setField(service, "sessionIdleSeconds", 3600L);
+		Map<String, UploadSession> sessions = (Map<String, UploadSession>) ReflectionTestUtils.getField(service, "sessions");
+
+		Path uploadDir = Files.createDirectories(storage.uploadDir());
+		UploadSession idle = new UploadSession("a.mp4", 10, 4, uploadDir);
+		UploadSession active = new UploadSession("b.mp4", 10, 4, uploadDir);
+		for (UploadSession session : new UploadSession[]{idle, active}) {
+			storage.reserve(session.getId(), session.getSize());
+			sessions.put(session.getId(), session);
+		}
+		ReflectionTestUtils.setField(idle, "lastActivity", System.nanoTime() - TimeUnit.HOURS.toNanos(2));
+
+		service.expireIdle(System.nanoTime());
+
+		assertThat(sessions).containsOnlyKeys(active.getId());
+		assertThat(storage.getReserved()).isEqualTo(10);
+		assertThat(storage.getPendingDeletes()).isEqualTo(1);
+		assertThat(service.get(active.getId())).isSameAs(active);
+		active.close();
+	}
+}
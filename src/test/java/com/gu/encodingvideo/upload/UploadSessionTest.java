@@ -0,0 +1,74 @@
+package com.gu.encodingvideo.upload;
+
+import com.gu.encodingvideo.cache.ContentHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadSessionTest {
+
+	@TempDir
+	Path uploadDir;
+
+	@Test
+	void writesChunksByPositionInAnyOrder() throws Exception {
+		UploadSession session = new UploadSession("a.mp4", 10, 4, uploadDir);
+
+		assertThat(session.getTotalChunks()).isEqualTo(3);
+		assertThat(session.lengthOf(2)).isEqualTo(2);
+		assertThat(Files.size(session.getFile())).isEqualTo(10);
+
+		session.channel().write(ByteBuffer.wrap("89".getBytes()), session.offsetOf(2));
+		session.markReceived(2);
+		session.channel().write(ByteBuffer.wrap("0123".getBytes()), session.offsetOf(0));
+		session.markReceived(0);
+
+		assertThat(session.getMissingChunks()).isEqualTo(List.of(1));
+		assertThat(session.isComplete()).isFalse();
+
+		session.channel().write(ByteBuffer.wrap("4567".getBytes()), session.offsetOf(1));
+		session.markReceived(1);
+		session.close();
+
+		assertThat(session.isComplete()).isTrue();
+		assertThat(Files.readString(session.getFile())).isEqualTo("0123456789");
+	}
+
+	@Test
+	void hashesBlockAlignedChunksInAnyOrder() throws Exception {
+		byte[] content = new byte[ContentHash.BLOCK_SIZE * 5 / 2];
+		new Random(1).nextBytes(content);
+		Path file = Files.write(uploadDir.resolve("a.mp4"), content);
+
+		UploadSession session = new UploadSession("a.mp4", content.length, ContentHash.BLOCK_SIZE * 2, uploadDir);
+		assertThat(session.isHashable()).isTrue();
+		for (int index : List.of(1, 0)) {
+			ContentHash hash = new ContentHash();
+			hash.update(content, (int) session.offsetOf(index), (int) session.lengthOf(index));
+			assertThat(session.getContentHash()).isNull();
+			session.hashed(index, hash.blockDigests());
+		}
+		session.close();
+		assertThat(session.getContentHash()).isEqualTo(ContentHash.of(file));
+
+		/* 블록 경계에서 시작하지 않는 조각은 워커에서 계산한다 */
+		UploadSession unaligned = new UploadSession("b.mp4", 10, 4, uploadDir);
+		unaligned.close();
+		assertThat(unaligned.isHashable()).isFalse();
+		assertThat(unaligned.getContentHash()).isNull();
+	}
+
+	@Test
+	void countsChunksWithoutOverflow() {
+		assertThat(UploadSession.chunkCount(10, 4)).isEqualTo(3);
+		assertThat(UploadSession.chunkCount(8, 4)).isEqualTo(2);
+		assertThat(UploadSession.chunkCount(Long.MAX_VALUE, 1)).isEqualTo(Long.MAX_VALUE);
+	}
+}